@@ -0,0 +1,49 @@
+package com.cvut.fel.pjv.Benchmarks;
+
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Piece;
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Perft;
+
+import java.io.File;
+
+/**
+ * The Fixtures class provides the positions the benchmarks run on.
+ * They are the saved games under saves/, the directory can be changed
+ * with the system property {@code arimaa.saves}.
+ */
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * Returns a saved game.
+     *
+     * @param name the file name of the save.
+     * @return the file of the save.
+     */
+    static File save(String name) {
+        return new File(System.getProperty("arimaa.saves", "saves"), name);
+    }
+
+    /**
+     * Fills the board with the position at the end of a saved game.
+     *
+     * @param name  the file name of the save.
+     * @param board the board to fill, it is cleared first.
+     * @return the color ordinal of the side to move.
+     */
+    static int load(String name, Board board) {
+        Position position = Perft.load(save(name));
+
+        board.clearBoard();
+        for (int sq = 0; sq < Position.SQUARES; ++sq) {
+            int code = position.pieceAt(sq);
+            if (code != Position.EMPTY) {
+                board.setPiece(sq >>> 3, sq & 7, new Piece(code));
+            }
+        }
+        board.position.setSide(position.getSide());
+        return position.getSide();
+    }
+}
@@ -0,0 +1,177 @@
+package com.cvut.fel.pjv.Benchmarks;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Engine.StepGenerator;
+import com.cvut.fel.pjv.Engine.TurnGenerator;
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Piece;
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.AI;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+import com.cvut.fel.pjv.Utilities.ValidationHelper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rules on the positions of the saved games: checking steps,
+ * frozen pieces, traps and winners, and generating the moves of the AI.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+    @Param({ "game loads vs AI.txt", "gold rabbilt last row.txt", "gold rabbits dead.txt",
+            "immobilization.txt", "no rabbits left.txt" })
+    public String save;
+
+    private GameController game;
+    private Board board;
+    private ValidationHelper validate;
+    private Colors whoseTurn;
+    private AI ai;
+
+    private final StepGenerator steps = new StepGenerator();
+    private final TurnGenerator turns = new TurnGenerator();
+
+    // all steps of pieces to empty neighbours, legal or not
+    private int[] froms;
+    private int[] tos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = new GameController(false, true);
+        board = game.board;
+        whoseTurn = Colors.values()[Fixtures.load(save, board)];
+        validate = game.validate;
+        ai = new AI(game, board, whoseTurn);
+
+        Position position = board.position;
+        int count = 0;
+        froms = new int[4 * Position.SQUARES];
+        tos = new int[4 * Position.SQUARES];
+        for (int from = 0; from < Position.SQUARES; ++from) {
+            if (position.pieceAt(from) == Position.EMPTY) {
+                continue;
+            }
+            long targets = Position.NEIGHBOURS[from] & ~position.occupied;
+            while (targets != 0) {
+                froms[count] = from;
+                tos[count++] = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+            }
+        }
+        froms = Arrays.copyOf(froms, count);
+        tos = Arrays.copyOf(tos, count);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        game.shutdown();
+    }
+
+    // the validator as the board view calls it, for every candidate step
+    @Benchmark
+    public void checkIfMoveValid(Blackhole blackhole) {
+        for (int i = 0; i < froms.length; ++i) {
+            blackhole.consume(validate.checkIfMoveValid(froms[i], tos[i], whoseTurn, 0, true));
+        }
+    }
+
+    @Benchmark
+    public void freezing(Blackhole blackhole) {
+        Position position = board.position;
+        for (int sq = 0; sq < Position.SQUARES; ++sq) {
+            blackhole.consume(position.isFrozen(sq));
+        }
+    }
+
+    // the frozen pieces of both colors computed from scratch, as before they were incremental
+    @Benchmark
+    public long freezingFromScratch() {
+        return board.position.computeFrozen(0) ^ board.position.computeFrozen(1);
+    }
+
+    // the scan of the traps of a finished turn, there is nothing to capture in the saves
+    @Benchmark
+    public String trapNoCapture() {
+        return validate.trap();
+    }
+
+    // the scan finding a piece to capture and removing it, see Capture
+    @Benchmark
+    public String trapCapture(Capture capture) {
+        return capture.game.validate.trap();
+    }
+
+    @Benchmark
+    public Colors checkWinner() {
+        return validate.checkWinner(whoseTurn);
+    }
+
+    @Benchmark
+    public int generateSteps() {
+        return steps.generate(board.position, whoseTurn.ordinal(), 4);
+    }
+
+    // all distinct turns, what the AI chooses from
+    @Benchmark
+    public int generateTurns() {
+        return turns.generate(board.position, whoseTurn.ordinal());
+    }
+
+    @Benchmark
+    public long chooseRandomTurn() {
+        return ai.chooseTurn(board.position);
+    }
+
+    /**
+     * A board with a single piece standing unguarded on a trap. The capture
+     * removes it, so it is put back after every invocation, the time of
+     * putting it back is not measured.
+     */
+    @State(Scope.Thread)
+    public static class Capture {
+        private static final int ROW = 5;
+        private static final int COL = 2;
+
+        private GameController game;
+        private Piece piece;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            game = new GameController(false, true);
+            piece = new Piece(Figures.CAT, Colors.GOLD);
+            game.board.setPiece(ROW, COL, piece);
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() {
+            game.board.setPiece(ROW, COL, piece);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            game.shutdown();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cvut.fel.pjv.Benchmarks;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Models.Board;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of loading the saved games and setting up the board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    /**
+     * A fresh headless game for every load, as a load replays the game from the start.
+     */
+    @State(Scope.Thread)
+    public static class Replay {
+        @Param({ "game loads vs AI.txt", "gold rabbilt last row.txt", "gold rabbits dead.txt",
+                "immobilization.txt", "no rabbits left.txt" })
+        public String save;
+
+        File file;
+        GameController game;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            file = Fixtures.save(save);
+        }
+
+        @Setup(Level.Invocation)
+        public void newGame() {
+            game = new GameController(false, true);
+        }
+
+        @TearDown(Level.Invocation)
+        public void shutdown() {
+            game.shutdown();
+        }
+    }
+
+    /**
+     * A board reused by every setup.
+     */
+    @State(Scope.Thread)
+    public static class Boards {
+        final Board board = new Board();
+    }
+
+    @Benchmark
+    public GameController loadGame(Replay replay) {
+        replay.game.serializer.loadGame(replay.file);
+        return replay.game;
+    }
+
+    @Benchmark
+    public Board initBoard(Boards boards) {
+        boards.board.initBoard();
+        return boards.board;
+    }
+}
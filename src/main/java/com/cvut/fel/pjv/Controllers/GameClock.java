@@ -0,0 +1,142 @@
+package com.cvut.fel.pjv.Controllers;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * The GameClock class measures the time of the game with the monotonic
+ * System.nanoTime and reports it in whole milliseconds. A scheduled thread
+ * wakes up a few times per second, so the clock costs almost no CPU, and the
+ * parts of a millisecond that were not reported yet are carried over to the
+ * next tick, so the clock does not drift.
+ * <p>
+ * The elapsed time is delivered through the given executor, so the game state
+ * is only changed on the controller's thread.
+ */
+public class GameClock {
+    /**
+     * How often the clock reports the elapsed time, in milliseconds.
+     */
+    public static final long TICK_MILLIS = 100;
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final ScheduledExecutorService scheduler;
+    private final Executor controllerThread;
+    private final LongConsumer onElapsed;
+
+    private ScheduledFuture<?> ticks;
+    private long lastTick;
+    private long carry;
+    private boolean paused;
+
+    /**
+     * Constructs a GameClock, it does not run until started.
+     *
+     * @param onElapsed        receives the elapsed milliseconds since the last report.
+     * @param controllerThread runs the reports, e.g. SwingUtilities::invokeLater.
+     */
+    public GameClock(LongConsumer onElapsed, Executor controllerThread) {
+        this.onElapsed = onElapsed;
+        this.controllerThread = controllerThread;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "arimaa-clock");
+            // the clock must not keep the application alive
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the clock, it does nothing if the clock already runs.
+     */
+    public synchronized void start() {
+        if (ticks != null || scheduler.isShutdown()) {
+            return;
+        }
+
+        lastTick = System.nanoTime();
+        carry = 0;
+        paused = false;
+        ticks = scheduler.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pauses the clock, e.g. while the game is being saved.
+     * The time that was not reported yet is returned instead of being delivered,
+     * so the caller can account for it right away.
+     *
+     * @return the milliseconds elapsed since the last report.
+     */
+    public synchronized long pause() {
+        if (paused || ticks == null) {
+            return 0;
+        }
+
+        long elapsed = collect();
+        paused = true;
+        return elapsed;
+    }
+
+    /**
+     * Resumes the paused clock, the time spent paused is not counted.
+     */
+    public synchronized void resume() {
+        if (!paused) {
+            return;
+        }
+
+        lastTick = System.nanoTime();
+        paused = false;
+    }
+
+    /**
+     * Returns whether the clock is paused.
+     *
+     * @return true if the clock is paused.
+     */
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Stops the clock and its thread, it can't be started again.
+     */
+    public synchronized void shutdown() {
+        scheduler.shutdownNow();
+        ticks = null;
+    }
+
+    /**
+     * Reports the elapsed time, it is called by the scheduler.
+     */
+    private synchronized void tick() {
+        if (paused) {
+            return;
+        }
+
+        long elapsed = collect();
+        if (elapsed > 0) {
+            controllerThread.execute(() -> onElapsed.accept(elapsed));
+        }
+    }
+
+    /**
+     * Takes the whole milliseconds elapsed since the last call, the rest is kept.
+     *
+     * @return the elapsed milliseconds.
+     */
+    private long collect() {
+        long now = System.nanoTime();
+        carry += now - lastTick;
+        lastTick = now;
+
+        long elapsed = carry / NANOS_PER_MILLI;
+        carry -= elapsed * NANOS_PER_MILLI;
+        return elapsed;
+    }
+}
@@ -1,40 +1,53 @@
 package com.cvut.fel.pjv.Controllers;
 
+import com.cvut.fel.pjv.Engine.Evaluator;
+import com.cvut.fel.pjv.Engine.RandomStrategy;
+import com.cvut.fel.pjv.Engine.Rules;
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.Strategy;
+import com.cvut.fel.pjv.Engine.Turns;
+import com.cvut.fel.pjv.Engine.UndoStack;
 import com.cvut.fel.pjv.Models.Board;
 import com.cvut.fel.pjv.Models.Piece;
-import com.cvut.fel.pjv.Models.State;
+import com.cvut.fel.pjv.Models.Position;
 
 import com.cvut.fel.pjv.Utilities.AI;
+import com.cvut.fel.pjv.Utilities.AIExecutor;
 import com.cvut.fel.pjv.Utilities.Colors;
 import com.cvut.fel.pjv.Utilities.ValidationHelper;
 import com.cvut.fel.pjv.Utilities.Figures;
+import com.cvut.fel.pjv.Utilities.GameMetrics;
 import com.cvut.fel.pjv.Utilities.GameSerializer;
+import com.cvut.fel.pjv.Utilities.StepTrace;
 
 import com.cvut.fel.pjv.Views.BoardView;
 import com.cvut.fel.pjv.Views.MainMenuView;
 import com.cvut.fel.pjv.Views.NewGameView;
 import com.cvut.fel.pjv.Views.ControlsView;
 
+import javax.swing.SwingUtilities;
+
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+
 import java.util.List;
-import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Random;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
-
 /**
  * The GameController class manages the state and flow of the game. It handles
  * interactions between the model,
  * view, and utility classes, processes player inputs, controls game timing, and
  * manages the game state.
+ * The views are only attached as {@link GameListener}s, so a headless
+ * controller plays the same game without any Swing frame.
  */
 public class GameController {
     private Logger logger;
 
-    // views
+    // views, they are null in a headless game
     public BoardView boardView;
     public Board board;
 
@@ -43,18 +56,23 @@ public class GameController {
     public MainMenuView mainMenu;
     public NewGameView newGame;
 
+    private final List<GameListener> listeners;
+    public final boolean headless;
+
     // helper classes
     public ValidationHelper validate;
     public GameSerializer serializer;
 
     // turn counters and switch
+    public boolean areFiguresSet = false;
     public Colors whoseTurn = Colors.GOLD;
     public int turnCounter = 0;
     public int totalGoldTurnCount = 2;
     public int totalSilverTurnCount = 2;
 
-    // timer info
-    private Thread gameTimer;
+    // timer info, all times are in milliseconds
+    private GameClock clock;
+    private int shownSeconds = -1;
     public boolean running = false;
     public int reserveGold = 50000;
     public int reserveSilver = 50000;
@@ -62,73 +80,105 @@ public class GameController {
 
     // AI utilities
     public AI ai;
+    public AIExecutor aiExecutor;
     public boolean vsAI = false;
-    private Random random;
 
     private final int boardSize = 8;
 
     // step back utilities
-    private List<State> statesDuringTurn;
+    private final UndoStack undo;
     private StringBuilder turn;
 
     public boolean logs;
 
+    // binary trace of the steps, null if the steps are not traced
+    public StepTrace trace;
+
+    // runtime metrics, see GameMetrics
+    public GameMetrics metrics;
+    private long lastTick;
+
     /**
      * Initializes the GameController with logging options.
-     * Sets up the main menu, new game view, board view, and controls view.
-     * Initializes the board, validation helper, serializer, and AI.
-     * Starts the game timer thread.
+     * Without a display, the controller is headless, see {@link #GameController(boolean, boolean)}.
      *
      * @param logs indicates whether logging is enabled.
      */
     public GameController(boolean logs) {
+        this(logs, GraphicsEnvironment.isHeadless());
+    }
+
+    /**
+     * Initializes the GameController with logging options.
+     * Sets up the main menu, new game view, board view, and controls view,
+     * unless the controller is headless.
+     * Initializes the board, validation helper, serializer, and AI.
+     * Starts the game clock, a headless game is only timed by {@link #handleTime(long)}
+     * and its AI plays on the calling thread.
+     *
+     * @param logs     indicates whether logging is enabled.
+     * @param headless indicates whether the game runs without any views.
+     */
+    public GameController(boolean logs, boolean headless) {
         this.logs = logs;
+        this.headless = headless;
 
         if (logs) {
             this.logger = LoggerFactory.getLogger(GameController.class);
         }
 
-        this.mainMenu = new MainMenuView(this);
-        this.newGame = new NewGameView(this);
-
-        this.boardView = new BoardView(this);
+        this.listeners = new ArrayList<>();
         this.board = new Board();
-        this.controlsView = new ControlsView(this);
-
-        this.random = new Random();
+        this.metrics = new GameMetrics();
 
         this.validate = new ValidationHelper(this, board);
-        this.serializer = new GameSerializer(this, board, controlsView, boardView);
+        this.serializer = new GameSerializer(this, board, listeners);
 
         this.ai = new AI(this, board, Colors.SILVER);
+        this.aiExecutor = new AIExecutor(ai, SwingUtilities::invokeLater, logs);
 
         this.turn = new StringBuilder();
 
-        this.statesDuringTurn = new ArrayList<>();
+        this.undo = new UndoStack();
 
-        // game timer thread, always runs and tries to launch the function
-        this.gameTimer = new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(1);
-                } catch (Exception e) {
-                    if (logs) {
-                        logger.error("Thread interrupted", e);
-                    }
-                }
+        this.clock = new GameClock(this::handleTime, SwingUtilities::invokeLater);
 
-                handleTime();
-            }
-        });
+        if (!headless) {
+            this.mainMenu = new MainMenuView(this);
+            this.newGame = new NewGameView(this);
+
+            this.boardView = new BoardView(this);
+            this.controlsView = new ControlsView(this);
+            addListener(boardView);
+            addListener(controlsView);
 
-        // start timer thread
-        gameTimer.start();
+            // the clock always runs, the time is only counted while the game is running
+            clock.start();
+        }
 
         if (logs) {
             logger.info("GameController initialized with logging enabled.");
         }
     }
 
+    /**
+     * Attaches a listener that follows the game.
+     *
+     * @param listener the listener to attach.
+     */
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Detaches a listener.
+     *
+     * @param listener the listener to detach.
+     */
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Starts the game by displaying the main menu.
      */
@@ -136,7 +186,50 @@ public class GameController {
         if (logs) {
             logger.info("Starting the game...");
         }
-        mainMenu.setVisible(true);
+        setMenuVisible(true);
+    }
+
+    /**
+     * Shows or hides the main menu, if there is one.
+     *
+     * @param visible whether the main menu should be visible.
+     */
+    public void setMenuVisible(boolean visible) {
+        if (mainMenu != null) {
+            mainMenu.setVisible(visible);
+        }
+    }
+
+    /**
+     * Tells the player something through the listeners,
+     * e.g. why the turn can't be finished.
+     *
+     * @param message the message for the player.
+     */
+    public void showMessage(String message) {
+        for (GameListener listener : listeners) {
+            listener.showMessage(message);
+        }
+    }
+
+    /**
+     * Appends text to the history shown by the listeners.
+     *
+     * @param text the text to append.
+     */
+    private void addToHistory(String text) {
+        for (GameListener listener : listeners) {
+            listener.addToHistory(text);
+        }
+    }
+
+    /**
+     * Lets the listeners show the current board.
+     */
+    private void updateBoard() {
+        for (GameListener listener : listeners) {
+            listener.updateBoard();
+        }
     }
 
     /**
@@ -147,9 +240,10 @@ public class GameController {
         if (logs) {
             logger.info("Beginning new game...");
         }
-        boardView.areFiguresSet = true;
+        areFiguresSet = true;
         // display initial time
-        updateTime(timeForTurn / 1000);
+        shownSeconds = -1;
+        showTime(timeForTurn);
 
         // start building initial gold position string for history
         StringBuilder goldPos = new StringBuilder();
@@ -157,7 +251,7 @@ public class GameController {
         for (int i = boardSize - 1; i > 5; --i) {
             for (int j = 0; j < boardSize; ++j) {
                 // append each position after converting to Arimaa notation
-                String position = board.board[i][j].getNotation();
+                String position = board.pieceAt(i, j).getNotation();
                 position += (char) ('a' + j);
                 position += (boardSize - i) + " ";
                 goldPos.append(position);
@@ -166,14 +260,14 @@ public class GameController {
         serializer.appendToHistory(goldPos.toString());
         goldPos.append("\n");
         // add to history
-        controlsView.addToHistory(goldPos.toString());
+        addToHistory(goldPos.toString());
 
         // repeat for silver
         StringBuilder silverPos = new StringBuilder();
         silverPos.append("1s ");
         for (int i = 1; i >= 0; --i) {
             for (int j = 0; j < boardSize; ++j) {
-                String position = board.board[i][j].getNotation();
+                String position = board.pieceAt(i, j).getNotation();
                 position += (char) ('a' + j);
                 position += (boardSize - i) + " ";
                 silverPos.append(position);
@@ -181,15 +275,18 @@ public class GameController {
         }
         serializer.appendToHistory(silverPos.toString());
         silverPos.append("\n");
-        controlsView.addToHistory(silverPos.toString());
+        addToHistory(silverPos.toString());
 
-        // add 2g before starting, because later we won't be able to
-        controlsView.addToHistory("2g ");
-        turn.append("2g ");
+        // add 2g before starting, because later we won't be able to, the turn itself
+        // gets its header with the first step
+        addToHistory("2g ");
 
         // start game timer
         running = true;
 
+        // from now on every finished turn is written into the journal
+        serializer.startJournal();
+
         if (logs) {
             logger.info("New game setup completed.");
         }
@@ -206,13 +303,16 @@ public class GameController {
         // position
         if (!loading) {
             board.initBoard();
-            boardView.initBoard();
+            for (GameListener listener : listeners) {
+                listener.initBoard();
+            }
         }
 
         // display the board
-        boardView.setVisible(true);
-        boardView.updateBoard();
-        controlsView.setVisible(true);
+        for (GameListener listener : listeners) {
+            listener.showBoard();
+        }
+        updateBoard();
 
         if (logs) {
             logger.info("Board created and displayed.");
@@ -227,8 +327,10 @@ public class GameController {
      */
     private void updateTime(int left) {
         // timer calls this every second to update display of time
-        controlsView.updateTime(left, whoseTurn);
-        if (logs) {
+        for (GameListener listener : listeners) {
+            listener.updateTime(left, whoseTurn);
+        }
+        if (logs && logger.isDebugEnabled()) {
             logger.debug("Updated time: {} seconds left for {}", left, whoseTurn);
         }
     }
@@ -243,10 +345,24 @@ public class GameController {
      * @return true if the move is valid, false otherwise.
      */
     public boolean validateTurnNormal(int[] oldPos, int[] newPos, Colors whoseTurn, boolean aiCheck) {
+        return validateTurnNormal(Position.square(oldPos[0], oldPos[1]), Position.square(newPos[0], newPos[1]),
+                whoseTurn, aiCheck);
+    }
+
+    /**
+     * Validates a player's turn based on the current game state and rules.
+     *
+     * @param from      the square index the piece stands on.
+     * @param to        the square index of the destination.
+     * @param whoseTurn the color of the player making the move.
+     * @param aiCheck   indicates if the validation is for an AI move.
+     * @return true if the move is valid, false otherwise.
+     */
+    public boolean validateTurnNormal(int from, int to, Colors whoseTurn, boolean aiCheck) {
         // we call validator to check the turn
-        boolean valid = validate.checkIfMoveValid(oldPos, newPos, whoseTurn, turnCounter, aiCheck);
-        if (logs) {
-            logger.debug("Turn validation for move from {} to {}: {}", oldPos, newPos, valid);
+        boolean valid = validate.checkIfMoveValid(from, to, whoseTurn, turnCounter, aiCheck);
+        if (logs && logger.isDebugEnabled()) {
+            logger.debug("Turn validation for move from {} to {}: {}", from, to, valid);
         }
         return valid;
     }
@@ -281,6 +397,12 @@ public class GameController {
         // first, we check if at least one turn was made, then if the finish is valid,
         // i.e. no unfinished pushes, etc.
 
+        if (aiExecutor.isThinking()) {
+            // the player can't finish the turn of the AI
+            return;
+        }
+
+        long start = System.nanoTime();
         if (turnCounter >= 1 && validate.validateEndTurn()) {
             if (logs) {
                 logger.info("Finishing player turn for {}", whoseTurn);
@@ -305,34 +427,111 @@ public class GameController {
                 totalGoldTurnCount += 1;
                 whoseTurn = Colors.SILVER;
                 serializer.appendToHistory(turn.toString()); // add turn to history
-                controlsView.addToHistory("\n"); // and write it out
+                addToHistory("\n"); // and write it out
                 turn.setLength(0); // remove eveything from turn builder
-                controlsView.addToHistory(totalSilverTurnCount + "s "); // prepend another turn
+                addToHistory(totalSilverTurnCount + "s "); // prepend another turn
 
             } else {
                 reserveSilver += timeForTurn;
                 totalSilverTurnCount += 1;
                 whoseTurn = Colors.GOLD;
                 serializer.appendToHistory(turn.toString());
-                controlsView.addToHistory("\n");
+                addToHistory("\n");
                 turn.setLength(0);
-                controlsView.addToHistory(totalGoldTurnCount + "g ");
+                addToHistory(totalGoldTurnCount + "g ");
             }
 
-            // reset timer and turn counter
+            // reset timer and turn counter, the position key follows the side to move
             turnCounter = 0;
+            board.position.setSide(whoseTurn.ordinal());
+            board.position.setStepsUsed(0);
             timeForTurn = 10000;
-            statesDuringTurn.clear(); // we don't need to step back anymore
+            undo.clear(); // we don't need to step back anymore
 
-            if (whoseTurn == Colors.SILVER && vsAI) {
-                // if the game is vs AI, we need to handle its turn
-                handleAITurn();
-            }
+            startAITurnIfDue();
 
             if (logs) {
                 logger.info("Turn finished. Next turn for {}", whoseTurn);
             }
+            metrics.turnLatency.since(start);
+        }
+    }
+
+    /**
+     * Replays a whole turn of a loaded game on the model only, without
+     * updating the views or logging the steps, then switches to the other side
+     * like {@link #finishPlayerTurn()}. The 2D array of the board is not updated,
+     * see {@link Board#syncPieces()}. Illegal steps are skipped, if the turn can't
+     * be finished, the position is left as it was before the turn.
+     *
+     * @param steps the packed turn, see {@link Turns}.
+     * @return the notation of the turn as added to the history, or null if the
+     *         turn can't be finished or won the game.
+     */
+    public String replayTurn(long steps) {
+        Position position = board.position;
+        int color = whoseTurn.ordinal();
+        long startKey = position.hash();
+        long context = Rules.START;
+
+        StringBuilder notation = new StringBuilder();
+        notation.append(whoseTurn == Colors.GOLD ? totalGoldTurnCount + "g " : totalSilverTurnCount + "s ");
+
+        for (int i = 0; i < Turns.length(steps); ++i) {
+            int step = Turns.step(steps, i);
+            int length = notation.length();
+            Steps.appendNotation(notation, position, step);
+
+            // an illegal step is skipped, as it would be when played on the board
+            long next = undo.make(position, context, color, Steps.from(step), Steps.to(step));
+            if (next == Rules.ILLEGAL) {
+                notation.setLength(length);
+                continue;
+            }
+            context = next;
+
+            notation.append(' ');
+            if (Rules.capture(context) != Position.NO_CAPTURE) {
+                Steps.appendCapture(notation, Rules.capture(context));
+                notation.append(' ');
+            }
         }
+
+        // the whole turn is taken back if it can't be finished
+        if (!Rules.canEndTurn(position, context, startKey)) {
+            while (undo.size() > 0) {
+                undo.unmake(position);
+            }
+            return null;
+        }
+        undo.clear();
+
+        int winner = Evaluator.winner(position, color);
+        if (winner >= 0) {
+            whoseTurn = Colors.values()[winner];
+            running = false;
+            board.syncPieces();
+            handleWin();
+            return null;
+        }
+
+        if (whoseTurn == Colors.GOLD) {
+            reserveGold += timeForTurn;
+            totalGoldTurnCount += 1;
+            whoseTurn = Colors.SILVER;
+        } else {
+            reserveSilver += timeForTurn;
+            totalSilverTurnCount += 1;
+            whoseTurn = Colors.GOLD;
+        }
+
+        String text = notation.toString();
+        serializer.appendToHistory(text);
+        turnCounter = 0;
+        position.setSide(whoseTurn.ordinal());
+        position.setStepsUsed(0);
+        timeForTurn = 10000;
+        return text;
     }
 
     /**
@@ -347,35 +546,32 @@ public class GameController {
      */
     public void setPieceTypeAtPosition(int oldRow, int oldCol, int newRow, int newCol) {
         // check if we are placing the figures at the start
-        if (!boardView.areFiguresSet) {
+        if (!areFiguresSet) {
             if (board.returnPieceColorAtPosition(oldRow, oldCol) == board.returnPieceColorAtPosition(newRow, newCol)) {
                 // if color is the same, we do the swap
-                Piece temp = board.board[newRow][newCol];
-                board.board[newRow][newCol] = board.board[oldRow][oldCol];
-                board.board[oldRow][oldCol] = temp;
-                boardView.updateBoard();
+                board.swapPieces(oldRow, oldCol, newRow, newCol);
+                updateBoard();
             }
 
         } else {
             // we are playing the game
 
-            // record position and save state for potential step back
-            int[] oldPos = new int[] { oldRow, oldCol };
-            int[] newPost = new int[] { newRow, newCol };
+            if (aiExecutor.isThinking()) {
+                // the pieces belong to the AI while it is thinking
+                return;
+            }
 
-            State currTurnState = new State();
-            currTurnState.oldRow = oldRow;
-            currTurnState.oldCol = oldCol;
-            currTurnState.newRow = newRow;
-            currTurnState.newCol = newCol;
-            currTurnState.copyValidator(validate);
+            // record the context before the step for potential step back
+            int from = Position.square(oldRow, oldCol);
+            int to = Position.square(newRow, newCol);
+            long context = validate.context;
+            int mark = turn.length();
 
             // if we pass validator, we do the turn
-            if (validateTurnNormal(oldPos, newPost, whoseTurn, false)) {
-                String position = board.board[oldRow][oldCol].getNotation();
+            if (validateTurnNormal(from, to, whoseTurn, false)) {
+                String position = board.pieceAt(oldRow, oldCol).getNotation();
 
-                board.board[newRow][newCol] = board.board[oldRow][oldCol];
-                board.board[oldRow][oldCol] = null;
+                board.movePiece(oldRow, oldCol, newRow, newCol);
 
                 // preappend turn counter + color to history
                 if (turnCounter == 0) {
@@ -400,51 +596,62 @@ public class GameController {
                     position += "e ";
                 }
                 turn.append(position);
-                controlsView.addToHistory(position);
+                addToHistory(position);
 
-                // check trap, record lost piece in state if it exists
+                // check trap, record lost piece if it exists
                 String trap = validate.trap();
-                currTurnState.lostPiece = validate.lostPiece;
-                if (currTurnState.lostPiece != null) {
-                    currTurnState.whereLostPieceWasRow = validate.whereLostPieceWasRow;
-                    currTurnState.whereLostPieceWasCol = validate.whereLostPieceWasCol;
+                int capture = Position.NO_CAPTURE;
+                if (validate.lostPiece != null) {
+                    capture = (validate.lostPiece.getCode() << 6)
+                            | Position.square(validate.whereLostPieceWasRow, validate.whereLostPieceWasCol);
                 }
 
-                // add to states that we can return to
-                statesDuringTurn.add(currTurnState);
+                // the step is packed into a single long we can return to, the mark is
+                // where the step starts in the notation of the turn
+                undo.push(UndoStack.encode(from, to, capture, context, mark));
 
                 // add trap to history
                 turn.append(trap);
-                controlsView.addToHistory(trap);
+                addToHistory(trap);
 
-                boardView.updateBoard();
+                updateBoard();
 
                 turnCounter++;
+                board.position.setStepsUsed(turnCounter);
 
-                if (logs) {
+                if (trace != null) {
+                    traceStep(Steps.step(from, to), capture, false);
+                }
+
+                // the board is not dumped any more, the trace keeps the position key of every step
+                if (logs && logger.isDebugEnabled()) {
                     logger.debug("Piece moved from ({}, {}) to ({}, {}). Current turn count: {}", oldRow, oldCol,
                             newRow, newCol, turnCounter);
                 }
             }
+        }
+    }
 
-            // if logger is on, we record the current state of the board
-            // from Board class
+    /**
+     * Writes a step into the trace, the trace is given up after an error.
+     *
+     * @param step    the packed step.
+     * @param capture the capture of the step, or {@link Position#NO_CAPTURE}.
+     * @param undone  indicates if the step was taken back.
+     */
+    private void traceStep(int step, int capture, boolean undone) {
+        try {
+            // the trace counts the steps used before the step
+            if (undone) {
+                trace.undo(step, capture, turnCounter, whoseTurn.ordinal(), board.position.key);
+            } else {
+                trace.step(step, capture, turnCounter - 1, whoseTurn.ordinal(), board.position.key);
+            }
+        } catch (IOException e) {
             if (logs) {
-                logger.debug("Board state after move:");
-                StringBuilder boardOutput = new StringBuilder();
-                for (int i = 0; i < boardSize; ++i) {
-                    for (int j = 0; j < boardSize; ++j) {
-                        if (board.board[i][j] == null) {
-                            boardOutput.append("xx ");
-                        } else {
-                            boardOutput.append(board.board[i][j].getColor().ordinal())
-                                    .append(board.board[i][j].getType().ordinal()).append(" ");
-                        }
-                    }
-                    boardOutput.append("\n");
-                }
-                logger.debug("\n" + boardOutput.toString());
+                logger.error("The step trace could not be written: {}", e.getMessage());
             }
+            trace = null;
         }
     }
 
@@ -456,11 +663,26 @@ public class GameController {
         if (logs) {
             logger.info("Player {} won the game!", whoseTurn);
         }
+        // the AI must not play into the finished game
+        cancelAITurn();
+
         // each view has to handle the win, we also reset board and history
-        controlsView.handleWin(whoseTurn);
-        boardView.handeEndGame();
-        board.clearBoard();
+        for (GameListener listener : listeners) {
+            listener.handleWin(whoseTurn);
+        }
         serializer.clearHistory();
+        resetGame();
+    }
+
+    /**
+     * Resets the board and all parameters to their initial values, e.g. before
+     * another game is loaded. The history is left to the serializer.
+     */
+    public void resetGame() {
+        areFiguresSet = false;
+        board.clearBoard();
+        undo.clear();
+        turn.setLength(0);
 
         // set all the parameters to initial values
         reserveGold = 50000;
@@ -468,6 +690,8 @@ public class GameController {
         timeForTurn = 10000;
         whoseTurn = Colors.GOLD;
         turnCounter = 0;
+        board.position.setSide(whoseTurn.ordinal());
+        board.position.setStepsUsed(0);
         totalGoldTurnCount = 2;
         totalSilverTurnCount = 2;
         vsAI = false;
@@ -475,88 +699,197 @@ public class GameController {
     }
 
     /**
-     * Sets the game mode to player vs AI.
+     * Sets the game mode to player vs AI playing random turns.
      */
     public void setVsAI() {
+        setVsAI(new RandomStrategy());
+    }
+
+    /**
+     * Sets the game mode to player vs AI.
+     *
+     * @param strategy the strategy the AI chooses its turns with.
+     */
+    public void setVsAI(Strategy strategy) {
         vsAI = true;
+        ai.setStrategy(strategy);
         if (logs) {
-            logger.info("Game mode set to player vs AI.");
+            logger.info("Game mode set to player vs AI ({}).", strategy.getName());
         }
     }
 
     /**
-     * Handles the AI's turn by making a
-     * random number of moves and validating the end of the turn.
+     * Handles the AI's turn by playing one of the
+     * distinct full turns and finishing it.
      */
     public void handleAITurn() {
         if (logs) {
             logger.info("AI is making its turn...");
         }
-        // we get the random number of moves for AI
-        int numberOfMoves = random.nextInt(4) + 1;
-        for (int i = 0; i < numberOfMoves; ++i) {
-            // AI makes its turn
 
-            ai.makeTurn();
+        // AI plays all steps of its turn, the position always changes
+        if (!ai.makeTurn() && logs) {
+            logger.warn("AI could not find any turn.");
         }
 
-        // here we assume AI did not finish the push but tries to finish the turn
-        if (!validate.validateEndTurn()) {
-            // we force him to finish the push
+        finishPlayerTurn();
+    }
 
-            ai.makeTurn();
+    /**
+     * Lets the AI play if the game is vs AI and silver is to move, e.g. after
+     * a turn of gold or after a game was loaded. The AI computes its turn in
+     * the background, a headless game has no event thread to keep responsive.
+     */
+    public void startAITurnIfDue() {
+        if (whoseTurn == Colors.SILVER && vsAI) {
+            if (headless) {
+                handleAITurn();
+            } else {
+                handleAITurnAsync();
+            }
         }
+    }
 
-        finishPlayerTurn();
+    /**
+     * Starts computing the AI's turn on a background thread. When the turn
+     * is chosen, it is played and finished on the Swing event thread.
+     */
+    public void handleAITurnAsync() {
+        if (logs) {
+            logger.info("AI is thinking about its turn...");
+        }
+
+        aiExecutor.submit(board.position, turn -> {
+            // AI plays all steps of its turn, the position always changes
+            if (!ai.playTurn(turn) && logs) {
+                logger.warn("AI could not find any turn.");
+            }
+
+            finishPlayerTurn();
+        });
+    }
+
+    /**
+     * Cancels the AI's turn if it is being computed,
+     * e.g. when the game ends or another game is loaded.
+     */
+    public void cancelAITurn() {
+        aiExecutor.cancel();
+    }
+
+    /**
+     * Handles one second of the game time.
+     */
+    public void handleTime() {
+        handleTime(1000);
     }
 
     /**
      * Handles the game timing, updating
      * the time left for the current player's turn
      * and managing turn transitions.
+     *
+     * @param elapsed the milliseconds elapsed since the last call.
      */
-    public void handleTime() {
+    public void handleTime(long elapsed) {
+        long now = System.nanoTime();
         if (!running) {
             // we simply return and do not handle timer logic
+            lastTick = 0;
             return;
         }
 
-        LocalTime startTime = LocalTime.now();
+        // the counted time is compared to the real time since the previous tick
+        if (lastTick != 0) {
+            metrics.clockTicked(elapsed, now - lastTick);
+        }
+        lastTick = now;
+
+        int left = (int) Math.min(elapsed, Integer.MAX_VALUE);
 
-        while (true) {
-            // until the second has passed, we sit in infinite loop
-            LocalTime currentTime = LocalTime.now();
-            Duration elapsed = Duration.between(startTime, currentTime);
-            if (elapsed.getSeconds() >= 1) {
-                break;
+        if (timeForTurn != 0) {
+            // first we use the normal time for turn
+            int used = Math.min(left, timeForTurn);
+            timeForTurn -= used;
+            left -= used;
+            if (left == 0) {
+                showTime(timeForTurn);
+                return;
             }
         }
 
-        if (timeForTurn != 0) {
-            // first we check if there is normal time left and update it
-            timeForTurn -= 1000;
-            updateTime(timeForTurn / 1000);
+        // no normal time left, we use reserve time
+        if (whoseTurn == Colors.GOLD) {
+            reserveGold = Math.max(0, reserveGold - left);
+            showTime(reserveGold);
+            if (reserveGold == 0) {
+                // if the reserve time is zero, the player is lost, we handle the win
+                whoseTurn = Colors.SILVER;
+                handleWin();
+            }
 
         } else {
-            // no normal time left, we use reserve time
-            if (whoseTurn == Colors.GOLD) {
-                reserveGold -= 1000;
-                updateTime(reserveGold / 1000);
-                if (reserveGold == 0) {
-                    // if the reserve time is zero, the player is lost, we handle the win
-                    whoseTurn = Colors.SILVER;
-                    handleWin();
-                }
+            reserveSilver = Math.max(0, reserveSilver - left);
+            showTime(reserveSilver);
+            if (reserveSilver == 0) {
+                whoseTurn = Colors.GOLD;
+                handleWin();
+            }
+        }
+    }
 
-            } else {
-                reserveSilver -= 1000;
-                updateTime(reserveSilver / 1000);
-                if (reserveSilver == 0) {
-                    whoseTurn = Colors.GOLD;
-                    handleWin();
+    /**
+     * Updates the display of the time, but only when the shown second changes.
+     *
+     * @param millis the time left in milliseconds.
+     */
+    private void showTime(int millis) {
+        int seconds = millis / 1000;
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            updateTime(seconds);
+        }
+    }
+
+    /**
+     * Pauses the game clock, e.g. while the game is being saved.
+     * The time used until now is accounted before this method returns.
+     */
+    public void pauseClock() {
+        handleTime(clock.pause());
+        lastTick = 0;
+    }
+
+    /**
+     * Resumes the game clock paused by {@link #pauseClock()}.
+     */
+    public void resumeClock() {
+        clock.resume();
+    }
+
+    /**
+     * Stops the clock and the AI threads, the controller can't be used afterwards.
+     */
+    public void shutdown() {
+        clock.shutdown();
+        serializer.closeJournal();
+        aiExecutor.shutdown();
+        ai.getStrategy().shutdown();
+        metrics.shutdown();
+
+        if (trace != null) {
+            try {
+                trace.close();
+            } catch (IOException e) {
+                if (logs) {
+                    logger.error("The step trace could not be closed: {}", e.getMessage());
                 }
             }
         }
+
+        if (logs) {
+            logger.info("GameController shut down.");
+        }
     }
 
     /**
@@ -575,26 +908,36 @@ public class GameController {
 
         // we get the latest state
 
-        State previousState = statesDuringTurn.removeLast();
+        long entry = undo.pop();
 
         // if the piece was lost during current turn, we need to restore it
-        if (previousState.lostPiece != null) {
-            board.board[previousState.whereLostPieceWasRow][previousState.whereLostPieceWasCol] = previousState.lostPiece;
-            previousState.lostPiece = null;
+        int capture = UndoStack.capture(entry);
+        if (capture != Position.NO_CAPTURE) {
+            int sq = capture & 63;
+            board.setPiece(sq >>> 3, sq & 7, new Piece(capture >>> 6));
         }
 
         // we return the figure to the previous position
-        board.board[previousState.oldRow][previousState.oldCol] = board.board[previousState.newRow][previousState.newCol];
-        board.board[previousState.newRow][previousState.newCol] = null;
-
-        // validator has to return to previous state as well, in order to force push if
-        // necessary
-        validate.returnToState(previousState);
-        boardView.updateBoard();
-        controlsView.removeFromHistory();
+        int from = UndoStack.from(entry);
+        int to = UndoStack.to(entry);
+        board.movePiece(to >>> 3, to & 7, from >>> 3, from & 7);
+
+        // validator has to return to previous context as well, in order to force push if
+        // necessary, and the step is removed from the notation of the turn
+        validate.context = UndoStack.context(entry);
+        turn.setLength(UndoStack.mark(entry));
+        updateBoard();
+        for (GameListener listener : listeners) {
+            listener.removeFromHistory();
+        }
 
         // decrease turn counter
         turnCounter--;
+        board.position.setStepsUsed(turnCounter);
+
+        if (trace != null) {
+            traceStep(Steps.step(from, to), capture, true);
+        }
 
         if (logs) {
             logger.info("Stepped back one move. Current turn counter: {}", turnCounter);
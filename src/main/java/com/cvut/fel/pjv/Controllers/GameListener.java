@@ -0,0 +1,73 @@
+package com.cvut.fel.pjv.Controllers;
+
+import com.cvut.fel.pjv.Utilities.Colors;
+
+/**
+ * The GameListener interface is implemented by everything that follows the
+ * game, e.g. the views. The game itself does not need any listener, so it
+ * can run without a display. All methods do nothing by default.
+ */
+public interface GameListener {
+    /**
+     * Called when the board is set up for a new or loaded game.
+     */
+    default void initBoard() {
+    }
+
+    /**
+     * Called when the board should be shown.
+     */
+    default void showBoard() {
+    }
+
+    /**
+     * Called when pieces on the board have changed.
+     */
+    default void updateBoard() {
+    }
+
+    /**
+     * Called when the placement is finished and the game is being played.
+     */
+    default void changeControls() {
+    }
+
+    /**
+     * Called when text is appended to the history of the game.
+     *
+     * @param turn the appended text.
+     */
+    default void addToHistory(String turn) {
+    }
+
+    /**
+     * Called when the last step is removed from the history of the game.
+     */
+    default void removeFromHistory() {
+    }
+
+    /**
+     * Called when the time shown to the players changes.
+     *
+     * @param left      the time left in seconds.
+     * @param whoseTurn the player whose time it is.
+     */
+    default void updateTime(int left, Colors whoseTurn) {
+    }
+
+    /**
+     * Called when the game is won.
+     *
+     * @param winner the winner of the game.
+     */
+    default void handleWin(Colors winner) {
+    }
+
+    /**
+     * Called when the player should be told something, e.g. why the turn can't be finished.
+     *
+     * @param message the message for the player.
+     */
+    default void showMessage(String message) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+/**
+ * The Evaluator class scores positions for the search.
+ * It counts material, rewards advanced rabbits and rabbits threatening the goal,
+ * and punishes frozen pieces and pieces left weakly protected on traps.
+ * All scores are from the point of view of the given side.
+ */
+public final class Evaluator {
+    /**
+     * The score of a won position, wins found sooner score a bit higher.
+     */
+    public static final int WIN = 100000;
+
+    /**
+     * Scores above this value (or below its negation) are wins (or losses).
+     */
+    public static final int WIN_BOUND = WIN - 1000;
+
+    // material value of each figure type, in the order of Figures
+    private static final int[] VALUES = { 100, 250, 300, 450, 700, 1000 };
+
+    private static final int FROZEN_PENALTY = 20;
+    private static final int TRAP_DANGER_PENALTY = 40;
+    private static final int TRAP_CONTROL_BONUS = 8;
+    private static final int GOAL_THREAT_BONUS = 300;
+
+    private Evaluator() {
+    }
+
+    /**
+     * Evaluates a position.
+     *
+     * @param position the position to evaluate.
+     * @param color    the color ordinal of the side the score is for.
+     * @return the score, positive if the side stands better.
+     */
+    public static int evaluate(Position position, int color) {
+        return side(position, color) - side(position, color ^ 1);
+    }
+
+    /**
+     * Decides if the game is over, it is also used by
+     * {@link com.cvut.fel.pjv.Utilities.ValidationHelper#checkWinner(Colors)}:
+     * a rabbit on its goal row first, then the sides without rabbits,
+     * and last the opponent that can't make any step.
+     *
+     * @param position the position at the end of a turn.
+     * @param mover    the color ordinal of the side that just played.
+     * @return the color ordinal of the winner, or -1 if the game goes on.
+     */
+    public static int winner(Position position, int mover) {
+        int gold = Colors.GOLD.ordinal();
+        int silver = Colors.SILVER.ordinal();
+
+        if (position.goalRabbits(gold) != 0) {
+            return gold;
+        }
+        if (position.goalRabbits(silver) != 0) {
+            return silver;
+        }
+
+        long goldRabbits = position.rabbits(gold);
+        long silverRabbits = position.rabbits(silver);
+        if (goldRabbits == 0 && silverRabbits == 0) {
+            return mover;
+        }
+        if (silverRabbits == 0) {
+            return gold;
+        }
+        if (goldRabbits == 0) {
+            return silver;
+        }
+
+        // the opponent loses if it can't move at all, usually its first piece can
+        if (!StepGenerator.hasMove(position, mover ^ 1)) {
+            return mover;
+        }
+        return -1;
+    }
+
+    /**
+     * Scores the pieces of one side.
+     *
+     * @param position the position to evaluate.
+     * @param color    the color ordinal of the side.
+     * @return the score of the side alone.
+     */
+    private static int side(Position position, int color) {
+        int score = 0;
+        int base = color * Position.TYPES;
+
+        for (int t = 0; t < Position.TYPES; ++t) {
+            score += VALUES[t] * Long.bitCount(position.pieces[base + t]);
+        }
+
+        // the fewer rabbits are left, the more each of them is worth
+        long rabbits = position.pieces[base + Figures.RABBIT.ordinal()];
+        int rabbitCount = Long.bitCount(rabbits);
+        score += (8 - rabbitCount) * rabbitCount * 10;
+
+        // rabbits closer to the goal are better, gold goes up the board, silver down
+        boolean gold = color == Colors.GOLD.ordinal();
+        long remaining = rabbits;
+        while (remaining != 0) {
+            int sq = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+
+            int advance = gold ? 7 - (sq >> 3) : sq >> 3;
+            score += advance * advance * 3;
+
+            // a rabbit one step from the goal with the way open is a serious threat
+            int goal = gold ? sq - 8 : sq + 8;
+            if (advance == 6 && position.pieceAt(goal) == Position.EMPTY && !position.isFrozen(sq)) {
+                score += GOAL_THREAT_BONUS;
+            }
+        }
+
+        score -= FROZEN_PENALTY * Long.bitCount(position.frozen(color));
+
+        // pieces on traps need friends around, and owning the traps helps in general
+        long own = position.occupancy[color];
+        long traps = Position.TRAPS;
+        while (traps != 0) {
+            int trap = Long.numberOfTrailingZeros(traps);
+            traps &= traps - 1;
+
+            int guards = Long.bitCount(Position.NEIGHBOURS[trap] & own);
+            score += TRAP_CONTROL_BONUS * guards;
+            if ((own & (1L << trap)) != 0 && guards <= 1) {
+                score -= TRAP_DANGER_PENALTY;
+            }
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,108 @@
+package com.cvut.fel.pjv.Engine;
+
+import java.util.Arrays;
+
+/**
+ * The LongHashSet class is a set of primitive longs with open addressing.
+ * It is meant to be cleared and reused many times, so it keeps its table
+ * between the uses and only grows when it gets too full.
+ */
+public class LongHashSet {
+    private long[] keys;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs a set with room for the given number of keys.
+     *
+     * @param expected the number of keys expected to be stored.
+     */
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.used = new boolean[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a key to the set.
+     *
+     * @param key the key to add.
+     * @return true if the key was not in the set yet.
+     */
+    public boolean add(long key) {
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        used[index] = true;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the key is in the set.
+     *
+     * @param key the key to look for.
+     * @return true if the key is in the set.
+     */
+    public boolean contains(long key) {
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of keys in the set.
+     *
+     * @return the number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all keys, keeping the allocated table.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+
+    private int slot(long key) {
+        // we mix the bits, so that keys differing only in the high bits spread well
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+
+        keys = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldUsed[i]) {
+                add(oldKeys[i]);
+            }
+        }
+    }
+}
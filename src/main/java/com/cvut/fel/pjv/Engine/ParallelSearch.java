@@ -0,0 +1,244 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The ParallelSearch class runs several {@link SearchEngine} workers on the same
+ * root position (Lazy SMP). The workers share one {@link TranspositionTable},
+ * so each of them profits from what the others have already searched. Every
+ * other helper starts one iteration deeper to spread the work. The main worker
+ * decides when the search ends, then the helpers are stopped and the deepest
+ * finished result is played.
+ */
+public class ParallelSearch implements Strategy {
+    /**
+     * The name of the strategy in saved games.
+     */
+    public static final String NAME = "PARALLEL";
+
+    /**
+     * The default number of worker threads, one per available core.
+     */
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // the time limit for searches to a fixed depth, one hour
+    private static final long NO_TIME_LIMIT = 3_600_000L;
+
+    private final long thinkTime;
+    private final TranspositionTable table;
+    private final SearchEngine[] workers;
+    private final ForkJoinPool pool;
+
+    /**
+     * The result of the last search, with the nodes of all workers.
+     */
+    public volatile SearchResult lastResult;
+
+    /**
+     * Constructs a ParallelSearch with a transposition table of the default size.
+     *
+     * @param thinkTime the time budget for one turn, in milliseconds.
+     * @param threads   the number of worker threads.
+     */
+    public ParallelSearch(long thinkTime, int threads) {
+        this(thinkTime, threads, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    /**
+     * Constructs a ParallelSearch.
+     *
+     * @param thinkTime the time budget for one turn, in milliseconds.
+     * @param threads   the number of worker threads.
+     * @param table     the transposition table shared by the workers.
+     */
+    public ParallelSearch(long thinkTime, int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of search threads must be positive: " + threads);
+        }
+
+        this.thinkTime = thinkTime;
+        this.table = table;
+        this.workers = new SearchEngine[threads];
+        for (int i = 0; i < threads; ++i) {
+            workers[i] = new SearchEngine(thinkTime, table);
+        }
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    @Override
+    public long chooseTurn(Position start, int color) {
+        // the stop requests were cleared by reset() when the turn was asked for
+        return start(start, color, thinkTime, SearchEngine.MAX_DEPTH).join().turn;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the number of threads.
+     */
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Returns the transposition table shared by the workers.
+     *
+     * @return the transposition table.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Searches the position with all workers and waits for the result.
+     *
+     * @param start     the position at the start of the turn, it is not changed.
+     * @param color     the color ordinal of the side to move.
+     * @param timeLimit the time budget in milliseconds.
+     * @param maxDepth  the deepest iteration to run, in full turns.
+     * @return the best turn found with the statistics of all workers.
+     */
+    public SearchResult search(Position start, int color, long timeLimit, int maxDepth) {
+        return searchAsync(start, color, timeLimit, maxDepth).join();
+    }
+
+    /**
+     * Starts a search with all workers and returns immediately, so that the
+     * caller (e.g. the Swing event thread) is not blocked.
+     *
+     * @param start     the position at the start of the turn, it is copied.
+     * @param color     the color ordinal of the side to move.
+     * @param timeLimit the time budget in milliseconds.
+     * @param maxDepth  the deepest iteration to run, in full turns.
+     * @return the future result of the search.
+     */
+    public CompletableFuture<SearchResult> searchAsync(Position start, int color, long timeLimit, int maxDepth) {
+        // we clear the stop requests here, so that a stop right after this call is not lost
+        reset();
+        return start(start, color, timeLimit, maxDepth);
+    }
+
+    /**
+     * Stops a running search, it completes with the best turn found so far.
+     */
+    @Override
+    public void stop() {
+        for (SearchEngine worker : workers) {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Clears the stop requests of all workers before the next search.
+     */
+    @Override
+    public void reset() {
+        for (SearchEngine worker : workers) {
+            worker.reset();
+        }
+    }
+
+    /**
+     * Starts the workers on the pool without touching the stop requests.
+     */
+    private CompletableFuture<SearchResult> start(Position start, int color, long timeLimit, int maxDepth) {
+        Position root = new Position();
+        root.copyFrom(start);
+        return CompletableFuture.supplyAsync(() -> coordinate(root, color, timeLimit, maxDepth), pool);
+    }
+
+    /**
+     * Runs the workers, it is called on a thread of the pool, so the helpers
+     * forked here are picked up by the other threads of the pool.
+     *
+     * @param root      the root position owned by this search.
+     * @param color     the color ordinal of the side to move.
+     * @param timeLimit the time budget in milliseconds.
+     * @param maxDepth  the deepest iteration to run, in full turns.
+     * @return the deepest result of all workers.
+     */
+    private SearchResult coordinate(Position root, int color, long timeLimit, int maxDepth) {
+        long startTime = System.nanoTime();
+        table.newSearch();
+
+        List<ForkJoinTask<SearchResult>> helpers = new ArrayList<>(workers.length - 1);
+        for (int i = 1; i < workers.length; ++i) {
+            SearchEngine helper = workers[i];
+            int firstDepth = 1 + (i & 1);
+            helpers.add(ForkJoinTask.adapt(() -> helper.iterate(root, color, timeLimit, maxDepth, firstDepth)).fork());
+        }
+
+        SearchResult result = workers[0].iterate(root, color, timeLimit, maxDepth, 1);
+
+        // the main worker is done, the helpers only finish their current node
+        long nodes = result.nodes;
+        for (int i = 1; i < workers.length; ++i) {
+            workers[i].stop();
+        }
+        for (ForkJoinTask<SearchResult> helperTask : helpers) {
+            SearchResult helperResult = helperTask.join();
+            nodes += helperResult.nodes;
+            if (helperResult.depth > result.depth && helperResult.turn != Turns.EMPTY) {
+                result = helperResult;
+            }
+        }
+
+        result.nodes = nodes;
+        result.millis = (System.nanoTime() - startTime) / 1_000_000L;
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * Measures how the search scales with the number of threads. The same
+     * position is searched to a fixed depth with 1, 2, 4, ... threads and
+     * a fresh table each time.
+     *
+     * @param start      the position to search.
+     * @param color      the color ordinal of the side to move.
+     * @param depth      the depth to search to, in full turns.
+     * @param maxThreads the largest number of threads to measure.
+     * @param tableMb    the size of the table for each measurement, in megabytes.
+     * @return a table with the time to depth, nodes per second and the speedup of each run.
+     */
+    public static String scalingReport(Position start, int color, int depth, int maxThreads, int tableMb) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%7s %5s %10s %12s %12s %7s%n",
+                "threads", "depth", "time [ms]", "nodes", "nodes/s", "speedup"));
+
+        long baseMillis = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ParallelSearch search = new ParallelSearch(NO_TIME_LIMIT, threads, new TranspositionTable(tableMb));
+            SearchResult result = search.search(start, color, NO_TIME_LIMIT, depth);
+            search.shutdown();
+
+            long millis = Math.max(result.millis, 1);
+            if (threads == 1) {
+                baseMillis = millis;
+            }
+            report.append(String.format("%7d %5d %10d %12d %12d %7.2f%n", threads, result.depth, result.millis,
+                    result.nodes, result.nodesPerSecond(), (double) baseMillis / millis));
+
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+
+import java.util.Random;
+
+/**
+ * The RandomStrategy class plays a uniformly random turn out of all distinct
+ * turns available in the position.
+ */
+public class RandomStrategy implements Strategy {
+    /**
+     * The name of the strategy in saved games.
+     */
+    public static final String NAME = "RANDOM";
+
+    private final TurnGenerator generator;
+    private final Random random;
+
+    /**
+     * Constructs a RandomStrategy.
+     */
+    public RandomStrategy() {
+        this.generator = new TurnGenerator();
+        this.random = new Random();
+    }
+
+    @Override
+    public long chooseTurn(Position position, int color) {
+        int count = generator.generate(position, color);
+        if (count == 0) {
+            return Turns.EMPTY;
+        }
+        return generator.turns[random.nextInt(count)];
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,290 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+/**
+ * The Rules class checks single steps of a turn without any hidden state.
+ * Everything a step depends on besides the position, i.e. the steps used so
+ * far and a push that has to be finished or a pull that may follow, is packed
+ * into a primitive turn context. A step takes a context and returns the next
+ * one, so the same rules can be used by any number of threads, search plies
+ * or games at once, and checking a step never allocates anything.
+ * <p>
+ * The context is laid out as follows:
+ * <ul>
+ * <li>bits 0-2: the steps used in the turn,</li>
+ * <li>bit 3: a push was started and has to be finished,</li>
+ * <li>bits 4-9: the square the pushed piece left, the pusher has to step there,</li>
+ * <li>bits 10-12: the weakest type that can finish the push,</li>
+ * <li>bit 13: the last step can be followed by a pull,</li>
+ * <li>bits 14-19: the square the last friendly piece left, a pulled piece steps there,</li>
+ * <li>bits 20-22: the type of that piece, only weaker pieces can be pulled,</li>
+ * <li>bits 23-32: the piece captured by the last step played, see {@link #capture(long)}.</li>
+ * </ul>
+ */
+public final class Rules {
+    /**
+     * The context at the start of every turn.
+     */
+    public static final long START = 0L;
+
+    /**
+     * The value returned for illegal steps, no valid context is negative.
+     */
+    public static final long ILLEGAL = -1L;
+
+    /**
+     * The number of steps in one turn.
+     */
+    public static final int MAX_STEPS = 4;
+
+    /**
+     * The reasons a step is rejected for, see {@link #rejection}: no step is
+     * left, the destination is not an empty neighbour, there is no piece to
+     * move, a started push is not finished, an enemy piece can be neither
+     * pulled nor pushed, a rabbit steps backwards and the piece is frozen.
+     */
+    public static final int NO_STEPS_LEFT = 0;
+    public static final int BLOCKED = 1;
+    public static final int NO_PIECE = 2;
+    public static final int PUSH_NOT_FINISHED = 3;
+    public static final int ENEMY_NOT_MOVABLE = 4;
+    public static final int RABBIT_BACKWARDS = 5;
+    public static final int FROZEN = 6;
+
+    /**
+     * The names of the reasons, indexed by the reason.
+     */
+    public static final String[] REJECTIONS = { "noStepsLeft", "blocked", "noPiece", "pushNotFinished",
+            "enemyNotMovable", "rabbitBackwards", "frozen" };
+
+    private static final long STEPS_MASK = 7L;
+    private static final long PUSH_PENDING = 1L << 3;
+    private static final int PUSH_SQUARE_SHIFT = 4;
+    private static final int PUSH_POWER_SHIFT = 10;
+    private static final long CAN_PULL = 1L << 13;
+    private static final int PULL_SQUARE_SHIFT = 14;
+    private static final int PULL_POWER_SHIFT = 20;
+    private static final int CAPTURE_SHIFT = 23;
+    private static final long CAPTURE_MASK = 0x3FFL << CAPTURE_SHIFT;
+
+    private Rules() {
+    }
+
+    /**
+     * Checks a single step of the side to move.
+     * The position is not changed.
+     *
+     * @param position the position before the step.
+     * @param context  the turn context before the step.
+     * @param color    the color ordinal of the side to move.
+     * @param from     the square the piece stands on.
+     * @param to       the destination square.
+     * @return the turn context after the step, or {@link #ILLEGAL}.
+     */
+    public static long validate(Position position, long context, int color, int from, int to) {
+        int steps = stepsUsed(context);
+        if (steps >= MAX_STEPS) {
+            return ILLEGAL;
+        }
+
+        // the destination has to be an empty neighbour, the same square is occupied as well
+        if ((position.occupied & (1L << to)) != 0 || (Position.NEIGHBOURS[from] & (1L << to)) == 0) {
+            return ILLEGAL;
+        }
+
+        int piece = position.pieceAt(from);
+        if (piece == Position.EMPTY) {
+            return ILLEGAL;
+        }
+
+        int type = Position.typeOf(piece);
+        long next = steps + 1;
+
+        // a started push has to be finished by a strong enough friendly piece
+        // stepping into the vacated square, it can't be followed by a pull
+        boolean pushPending = (context & PUSH_PENDING) != 0;
+        if (pushPending && (to != pushSquare(context) || type < pushPower(context)
+                || Position.colorOf(piece) != color)) {
+            return ILLEGAL;
+        }
+
+        if (Position.colorOf(piece) != color) {
+            // a weaker enemy piece can follow our last step into the square we left
+            if (!pushPending
+                    && (context & CAN_PULL) != 0
+                    && to == pullSquare(context)
+                    && type < pullPower(context)) {
+                return next;
+            }
+
+            // otherwise the enemy piece is pushed, which needs a step left to finish it
+            if (steps == MAX_STEPS - 1) {
+                return ILLEGAL;
+            }
+
+            long pushers = Position.NEIGHBOURS[from] & position.stronger(color, type);
+            while (pushers != 0) {
+                int pusher = Long.numberOfTrailingZeros(pushers);
+                pushers &= pushers - 1;
+
+                if (!position.isFrozen(pusher)) {
+                    int power = Math.min(type + 1, Figures.ELEPHANT.ordinal());
+                    return next | PUSH_PENDING
+                            | ((long) from << PUSH_SQUARE_SHIFT)
+                            | ((long) power << PUSH_POWER_SHIFT);
+                }
+            }
+            return ILLEGAL;
+        }
+
+        // rabbits can't step backwards, gold moves up the board, silver down
+        if (type == Figures.RABBIT.ordinal()) {
+            boolean gold = color == Colors.GOLD.ordinal();
+            if (gold ? to == from + 8 : to == from - 8) {
+                return ILLEGAL;
+            }
+        }
+
+        if (position.isFrozen(from)) {
+            return ILLEGAL;
+        }
+
+        // the piece may pull a weaker enemy into the square it left, unless it finished a push
+        next |= ((long) from << PULL_SQUARE_SHIFT) | ((long) type << PULL_POWER_SHIFT);
+        if (!pushPending) {
+            next |= CAN_PULL;
+        }
+        return next;
+    }
+
+    /**
+     * Tells why {@link #validate} rejected a step. The checks are repeated in
+     * the same order, so it is meant for rejected steps only.
+     *
+     * @param position the position before the step.
+     * @param context  the turn context before the step.
+     * @param color    the color ordinal of the side to move.
+     * @param from     the square the piece stands on.
+     * @param to       the destination square.
+     * @return the reason, e.g. {@link #FROZEN}.
+     */
+    public static int rejection(Position position, long context, int color, int from, int to) {
+        if (stepsUsed(context) >= MAX_STEPS) {
+            return NO_STEPS_LEFT;
+        }
+        if ((position.occupied & (1L << to)) != 0 || (Position.NEIGHBOURS[from] & (1L << to)) == 0) {
+            return BLOCKED;
+        }
+
+        int piece = position.pieceAt(from);
+        if (piece == Position.EMPTY) {
+            return NO_PIECE;
+        }
+        if ((context & PUSH_PENDING) != 0 && (to != pushSquare(context)
+                || Position.typeOf(piece) < pushPower(context) || Position.colorOf(piece) != color)) {
+            return PUSH_NOT_FINISHED;
+        }
+        if (Position.colorOf(piece) != color) {
+            return ENEMY_NOT_MOVABLE;
+        }
+        if (Position.typeOf(piece) == Figures.RABBIT.ordinal()
+                && to == (color == Colors.GOLD.ordinal() ? from + 8 : from - 8)) {
+            return RABBIT_BACKWARDS;
+        }
+        return FROZEN;
+    }
+
+    /**
+     * Checks a single step and plays it if it is legal, removing a piece
+     * left unprotected on a trap.
+     *
+     * @param position the position before the step, it is changed only if the step is legal.
+     * @param context  the turn context before the step.
+     * @param color    the color ordinal of the side to move.
+     * @param from     the square the piece stands on.
+     * @param to       the destination square.
+     * @return the turn context after the step with its capture, or {@link #ILLEGAL}.
+     */
+    public static long play(Position position, long context, int color, int from, int to) {
+        long next = validate(position, context, color, from, to);
+        if (next == ILLEGAL) {
+            return ILLEGAL;
+        }
+
+        int capture = position.step(from, to);
+        return next | ((long) (capture + 1) << CAPTURE_SHIFT);
+    }
+
+    /**
+     * Checks if the turn can be finished, i.e. at least one step was made,
+     * no push is left unfinished and the placement differs from the start of the turn.
+     *
+     * @param position the position at the end of the turn.
+     * @param context  the turn context after the last step.
+     * @param startKey the {@link Position#hash()} at the start of the turn.
+     * @return true if the turn can be finished.
+     */
+    public static boolean canEndTurn(Position position, long context, long startKey) {
+        return stepsUsed(context) > 0 && !isPushPending(context) && position.hash() != startKey;
+    }
+
+    /**
+     * Returns the number of steps used in the turn.
+     *
+     * @param context the turn context.
+     * @return the steps used, between 0 and 4.
+     */
+    public static int stepsUsed(long context) {
+        return (int) (context & STEPS_MASK);
+    }
+
+    /**
+     * Returns whether a push was started and has to be finished by the next step.
+     *
+     * @param context the turn context.
+     * @return true if a push is pending.
+     */
+    public static boolean isPushPending(long context) {
+        return (context & PUSH_PENDING) != 0;
+    }
+
+    /**
+     * Returns whether the next step may pull an enemy piece.
+     *
+     * @param context the turn context.
+     * @return true if a pull is possible.
+     */
+    public static boolean canPull(long context) {
+        return (context & CAN_PULL) != 0;
+    }
+
+    /**
+     * Returns the piece captured by the step that produced the context in {@link #play}.
+     *
+     * @param context the turn context.
+     * @return the capture in the format of {@link Position#step(int, int)}, or
+     *         {@link Position#NO_CAPTURE}.
+     */
+    public static int capture(long context) {
+        return (int) ((context & CAPTURE_MASK) >>> CAPTURE_SHIFT) - 1;
+    }
+
+    private static int pushSquare(long context) {
+        return (int) (context >>> PUSH_SQUARE_SHIFT) & 63;
+    }
+
+    private static int pushPower(long context) {
+        return (int) (context >>> PUSH_POWER_SHIFT) & 7;
+    }
+
+    private static int pullSquare(long context) {
+        return (int) (context >>> PULL_SQUARE_SHIFT) & 63;
+    }
+
+    private static int pullPower(long context) {
+        return (int) (context >>> PULL_POWER_SHIFT) & 7;
+    }
+}
@@ -0,0 +1,487 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+
+import java.util.Arrays;
+
+/**
+ * The SearchEngine class chooses turns with an alpha-beta search
+ * (principal variation search) over full turns. It deepens the search one turn
+ * at a time until the time budget runs out and plays the best turn of the
+ * deepest finished iteration. The children of every node are the distinct
+ * turns from {@link TurnGenerator}, ordered by the static evaluation, with
+ * the best turn remembered in the {@link TranspositionTable} tried first.
+ */
+public class SearchEngine implements Strategy {
+    /**
+     * The name of the strategy in saved games.
+     */
+    public static final String NAME = "SEARCH";
+
+    /**
+     * The default time budget for one turn, in milliseconds.
+     */
+    public static final long DEFAULT_THINK_TIME = 2000;
+
+    /**
+     * The deepest search in full turns.
+     */
+    public static final int MAX_DEPTH = 8;
+
+    private static final int INFINITY = Evaluator.WIN + 1;
+
+    // how often we look at the clock, must be a power of two minus one
+    private static final int TIME_CHECK_MASK = 1023;
+
+    private final long thinkTime;
+    private final Position position;
+    private final TranspositionTable table;
+
+    // receives the entries read from the table
+    private final long[] entry = new long[2];
+
+    // buffers for each ply, so that the search does not allocate
+    private final TurnGenerator[] generators;
+    private final long[][] order;
+    private final int[][] captures;
+
+    private long deadline;
+    private boolean aborted;
+
+    // set from another thread to end the search early, see ParallelSearch
+    private volatile boolean stopped;
+
+    /**
+     * The number of positions visited by the current or last search.
+     */
+    public long nodes;
+
+    /**
+     * The result of the last search.
+     */
+    public SearchResult lastResult;
+
+    /**
+     * Constructs a SearchEngine with its own transposition table of the default size.
+     *
+     * @param thinkTime the time budget for one turn, in milliseconds.
+     */
+    public SearchEngine(long thinkTime) {
+        this(thinkTime, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    /**
+     * Constructs a SearchEngine.
+     *
+     * @param thinkTime the time budget for one turn, in milliseconds.
+     * @param table     the transposition table to use.
+     */
+    public SearchEngine(long thinkTime, TranspositionTable table) {
+        this.thinkTime = thinkTime;
+        this.position = new Position();
+        this.table = table;
+        this.generators = new TurnGenerator[MAX_DEPTH + 1];
+        this.order = new long[MAX_DEPTH + 1][];
+        this.captures = new int[MAX_DEPTH + 1][Turns.MAX_STEPS];
+        for (int i = 0; i <= MAX_DEPTH; ++i) {
+            generators[i] = new TurnGenerator();
+            order[i] = new long[0];
+        }
+    }
+
+    @Override
+    public long chooseTurn(Position start, int color) {
+        // the stop request was cleared by reset() when the turn was asked for
+        table.newSearch();
+        return iterate(start, color, thinkTime, MAX_DEPTH, 1).turn;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns the transposition table of the engine.
+     *
+     * @return the transposition table.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Searches the position with iterative deepening on the calling thread,
+     * an earlier stop request is cleared first.
+     *
+     * @param start     the position at the start of the turn, it is not changed.
+     * @param color     the color ordinal of the side to move.
+     * @param timeLimit the time budget in milliseconds.
+     * @param maxDepth  the deepest iteration to run, in full turns.
+     * @return the best turn found with the statistics of the search.
+     */
+    public SearchResult search(Position start, int color, long timeLimit, int maxDepth) {
+        reset();
+        table.newSearch();
+        return iterate(start, color, timeLimit, maxDepth, 1);
+    }
+
+    /**
+     * Ends the running search as soon as possible, it returns the best turn found so far.
+     * This is the only method that may be called from another thread.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Clears the stop request before a search started by {@link #iterate}.
+     */
+    @Override
+    public void reset() {
+        stopped = false;
+    }
+
+    /**
+     * Runs the iterative deepening without preparing the transposition table,
+     * so that several engines can search the same root with a shared table.
+     *
+     * @param start      the position at the start of the turn, it is not changed.
+     * @param color      the color ordinal of the side to move.
+     * @param timeLimit  the time budget in milliseconds.
+     * @param maxDepth   the deepest iteration to run, in full turns.
+     * @param firstDepth the first iteration to run.
+     * @return the best turn found with the statistics of the search.
+     */
+    SearchResult iterate(Position start, int color, long timeLimit, int maxDepth, int firstDepth) {
+        long startTime = System.nanoTime();
+        deadline = startTime + timeLimit * 1_000_000L;
+        aborted = false;
+        nodes = 0;
+
+        position.copyFrom(start);
+        position.setSide(color);
+        position.setStepsUsed(0);
+
+        SearchResult result = new SearchResult();
+        result.turn = Turns.EMPTY;
+
+        TurnGenerator generator = generators[0];
+        int count = generator.generate(position, color);
+        if (count > 0) {
+            // the first iteration is ordered by the static evaluation
+            long[] rootOrder = orderByEvaluation(0, generator, count, color, Turns.EMPTY);
+            result.turn = generator.turns[index(rootOrder[0])];
+
+            for (int depth = firstDepth; depth <= Math.min(maxDepth, MAX_DEPTH) && !aborted; ++depth) {
+                int best = searchRoot(generator, rootOrder, count, depth, result);
+                if (!aborted) {
+                    result.depth = depth;
+                    result.score = best;
+                    table.store(position.key, depth, best, TranspositionTable.EXACT, result.turn);
+                }
+
+                // there is no point in searching deeper once the game is decided
+                if (Math.abs(result.score) > Evaluator.WIN_BOUND) {
+                    break;
+                }
+            }
+        }
+
+        result.nodes = nodes;
+        result.millis = (System.nanoTime() - startTime) / 1_000_000L;
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * Searches all turns at the root and reorders them by their scores.
+     * If the time runs out, the turns searched so far are still used, as the
+     * best turn of the previous iteration is always searched first.
+     *
+     * @param generator the generator holding the root turns.
+     * @param rootOrder the root turns packed with their scores, best first.
+     * @param count     the number of root turns.
+     * @param depth     the depth of this iteration.
+     * @param result    the result to update with the best turn.
+     * @return the score of the best turn.
+     */
+    private int searchRoot(TurnGenerator generator, long[] rootOrder, int count, int depth, SearchResult result) {
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        long bestTurn = Turns.EMPTY;
+
+        for (int i = 0; i < count; ++i) {
+            int index = index(rootOrder[i]);
+            long turn = generator.turns[index];
+
+            makeTurn(turn, 0);
+            int score;
+            if (i == 0) {
+                score = -pvs(depth - 1, -beta, -alpha, 1);
+            } else {
+                score = -pvs(depth - 1, -alpha - 1, -alpha, 1);
+                if (score > alpha && !aborted) {
+                    score = -pvs(depth - 1, -beta, -alpha, 1);
+                }
+            }
+            unmakeTurn(turn, 0);
+
+            if (aborted) {
+                break;
+            }
+
+            rootOrder[i] = pack(score, index);
+            if (score > alpha) {
+                alpha = score;
+                bestTurn = turn;
+            }
+        }
+
+        if (bestTurn != Turns.EMPTY) {
+            result.turn = bestTurn;
+        }
+
+        // the turns not searched in an aborted iteration keep their old scores
+        // and they are ordered behind the searched ones
+        if (!aborted) {
+            Arrays.sort(rootOrder, 0, count);
+            reverse(rootOrder, count);
+        }
+
+        return alpha;
+    }
+
+    /**
+     * The principal variation search of a position inside the tree.
+     *
+     * @param depth the remaining depth in full turns.
+     * @param alpha the lower bound of the window.
+     * @param beta  the upper bound of the window.
+     * @param ply   the distance from the root.
+     * @return the score from the point of view of the side to move.
+     */
+    private int pvs(int depth, int alpha, int beta, int ply) {
+        if ((++nodes & TIME_CHECK_MASK) == 0 && (stopped || System.nanoTime() > deadline)) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        int color = position.getSide();
+        int winner = Evaluator.winner(position, color ^ 1);
+        if (winner != -1) {
+            return winner == color ? Evaluator.WIN - ply : -(Evaluator.WIN - ply);
+        }
+
+        if (depth == 0) {
+            return Evaluator.evaluate(position, color);
+        }
+
+        // we use the remembered result if it was searched deep enough, the key
+        // includes the side to move, as the steps used are always zero here
+        long key = position.key;
+        long hashTurn = Turns.EMPTY;
+        if (table.probe(key, entry)) {
+            hashTurn = entry[1];
+            if (TranspositionTable.depth(entry[0]) >= depth) {
+                int score = TranspositionTable.fromTable(TranspositionTable.score(entry[0]), ply);
+                int bound = TranspositionTable.bound(entry[0]);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        TurnGenerator generator = generators[ply];
+        int count = generator.generate(position, color);
+        if (count == 0) {
+            // the side that can't move loses
+            return -(Evaluator.WIN - ply);
+        }
+
+        int originalAlpha = alpha;
+        long bestTurn = Turns.EMPTY;
+
+        if (depth == 1) {
+            // the children are leaves, ordering them would cost as much as searching them,
+            // we only move the remembered best turn to the front
+            moveToFront(generator, count, hashTurn);
+            for (int i = 0; i < count; ++i) {
+                long turn = generator.turns[i];
+                makeTurn(turn, ply);
+                int score = -pvs(0, -beta, -alpha, ply + 1);
+                unmakeTurn(turn, ply);
+
+                if (score > alpha) {
+                    alpha = score;
+                    bestTurn = turn;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+            store(key, depth, alpha, originalAlpha, beta, ply, bestTurn);
+            return alpha;
+        }
+
+        long[] children = orderByEvaluation(ply, generator, count, color, hashTurn);
+        for (int i = 0; i < count; ++i) {
+            long turn = generator.turns[index(children[i])];
+
+            makeTurn(turn, ply);
+            int score;
+            if (i == 0) {
+                score = -pvs(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -pvs(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -pvs(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            unmakeTurn(turn, ply);
+
+            if (aborted) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestTurn = turn;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        store(key, depth, alpha, originalAlpha, beta, ply, bestTurn);
+        return alpha;
+    }
+
+    /**
+     * Stores the result of a finished node into the transposition table.
+     *
+     * @param key           the hash key of the position.
+     * @param depth         the searched depth.
+     * @param score         the result of the search.
+     * @param originalAlpha the lower bound of the window the node was searched with.
+     * @param beta          the upper bound of the window.
+     * @param ply           the distance from the root.
+     * @param bestTurn      the best turn, or {@link Turns#EMPTY} if no turn raised alpha.
+     */
+    private void store(long key, int depth, int score, int originalAlpha, int beta, int ply, long bestTurn) {
+        if (aborted) {
+            return;
+        }
+
+        int bound = score <= originalAlpha ? TranspositionTable.UPPER
+                : score >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, depth, TranspositionTable.toTable(score, ply), bound, bestTurn);
+    }
+
+    /**
+     * Moves a turn to the front of the generated turns.
+     *
+     * @param generator the generator holding the turns.
+     * @param count     the number of turns.
+     * @param turn      the turn to move, nothing happens if it is not among them.
+     */
+    private static void moveToFront(TurnGenerator generator, int count, long turn) {
+        if (turn == Turns.EMPTY) {
+            return;
+        }
+        long[] turns = generator.turns;
+        for (int i = 0; i < count; ++i) {
+            if (turns[i] == turn) {
+                turns[i] = turns[0];
+                turns[0] = turn;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Orders the generated turns by the static evaluation of the positions they lead to.
+     *
+     * @param ply       the distance from the root, selects the buffer.
+     * @param generator the generator holding the turns.
+     * @param count     the number of turns.
+     * @param color     the color ordinal of the side to move.
+     * @param first     the turn to put in front of all others, or {@link Turns#EMPTY}.
+     * @return the turn indices packed with their scores, best first.
+     */
+    private long[] orderByEvaluation(int ply, TurnGenerator generator, int count, int color, long first) {
+        if (order[ply].length < count) {
+            order[ply] = new long[Math.max(count, order[ply].length * 2)];
+        }
+        long[] packed = order[ply];
+
+        for (int i = 0; i < count; ++i) {
+            long turn = generator.turns[i];
+            if (turn == first) {
+                packed[i] = pack(INFINITY, i);
+                continue;
+            }
+
+            makeTurn(turn, ply);
+            int winner = Evaluator.winner(position, color);
+            int score = winner == -1 ? Evaluator.evaluate(position, color)
+                    : winner == color ? Evaluator.WIN : -Evaluator.WIN;
+            unmakeTurn(turn, ply);
+            packed[i] = pack(score, i);
+        }
+
+        Arrays.sort(packed, 0, count);
+        reverse(packed, count);
+        return packed;
+    }
+
+    /**
+     * Plays all steps of a turn and passes the move to the other side.
+     *
+     * @param turn the packed turn.
+     * @param ply  the distance from the root, selects the buffer for captures.
+     */
+    private void makeTurn(long turn, int ply) {
+        int[] captured = captures[ply];
+        for (int i = 0; i < Turns.length(turn); ++i) {
+            int step = Turns.step(turn, i);
+            captured[i] = position.step(Steps.from(step), Steps.to(step));
+        }
+        position.setSide(position.getSide() ^ 1);
+    }
+
+    /**
+     * Takes back a turn made by {@link #makeTurn(long, int)}.
+     *
+     * @param turn the packed turn.
+     * @param ply  the distance from the root, selects the buffer for captures.
+     */
+    private void unmakeTurn(long turn, int ply) {
+        position.setSide(position.getSide() ^ 1);
+        int[] captured = captures[ply];
+        for (int i = Turns.length(turn) - 1; i >= 0; --i) {
+            int step = Turns.step(turn, i);
+            position.undoStep(Steps.from(step), Steps.to(step), captured[i]);
+        }
+    }
+
+    private static long pack(int score, int index) {
+        // the score goes into the high bits, so sorting the longs sorts by score
+        return ((long) score << 32) | index;
+    }
+
+    private static int index(long packed) {
+        return (int) packed;
+    }
+
+    private static void reverse(long[] array, int count) {
+        for (int i = 0, j = count - 1; i < j; ++i, --j) {
+            long tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+}
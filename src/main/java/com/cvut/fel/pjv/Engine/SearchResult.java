@@ -0,0 +1,47 @@
+package com.cvut.fel.pjv.Engine;
+
+/**
+ * The SearchResult class holds the outcome of one search:
+ * the best turn found, its score and the statistics of the search.
+ */
+public class SearchResult {
+    /**
+     * The best turn found, see {@link Turns}.
+     */
+    public long turn;
+
+    /**
+     * The score of the best turn from the point of view of the side to move.
+     */
+    public int score;
+
+    /**
+     * The deepest completed iteration, in full turns.
+     */
+    public int depth;
+
+    /**
+     * The number of visited positions.
+     */
+    public long nodes;
+
+    /**
+     * The time the search took, in milliseconds.
+     */
+    public long millis;
+
+    /**
+     * Returns the speed of the search.
+     *
+     * @return the number of visited positions per second.
+     */
+    public long nodesPerSecond() {
+        return millis == 0 ? nodes * 1000 : nodes * 1000 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + ", score " + score + ", nodes " + nodes + ", " + millis + " ms, "
+                + nodesPerSecond() + " nodes/s";
+    }
+}
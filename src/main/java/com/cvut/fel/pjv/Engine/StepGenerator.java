@@ -0,0 +1,143 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+/**
+ * The StepGenerator class produces the legal moves of one side directly from
+ * a bitboard Position. A move is either an orthogonal step of an unfrozen
+ * friendly piece, or a push/pull made of two steps (see {@link Steps}).
+ * The moves are written into a reusable int buffer, so generating them does
+ * not allocate anything.
+ */
+public class StepGenerator {
+    /**
+     * The upper bound of moves in any position: 64 simple steps, and at most
+     * 192 pushes and 192 pulls (16 pieces, each with 4 neighbours and 3 empty cells).
+     */
+    public static final int MAX_MOVES = 512;
+
+    /**
+     * The buffer with the generated moves.
+     */
+    public final int[] moves = new int[MAX_MOVES];
+
+    /**
+     * The number of moves generated by the last call.
+     */
+    public int count;
+
+    /**
+     * Checks if the given side can make at least one step at the start of its turn.
+     * It stops at the first piece that can move, so it is much cheaper than
+     * generating all moves.
+     *
+     * @param position the position to check.
+     * @param color    the color ordinal of the side to move.
+     * @return true if any legal step exists, false if the side is immobilized.
+     */
+    public static boolean hasMove(Position position, int color) {
+        long empty = ~position.occupied;
+        long movable = position.occupancy[color] & ~position.frozen(color);
+        long rabbits = movable & position.rabbits(color);
+        long others = movable & ~rabbits;
+
+        // any other piece with an empty cell nearby can step there
+        long blocked = others & ~Position.neighbours(empty);
+        if (blocked != others) {
+            return true;
+        }
+
+        // rabbits can't step backwards, gold moves up the board, silver down
+        long forward = color == Colors.GOLD.ordinal() ? rabbits >>> 8 : rabbits << 8;
+        long sideways = ((rabbits & ~Position.FILE_A) >>> 1) | ((rabbits & ~Position.FILE_H) << 1);
+        if (((forward | sideways) & empty) != 0) {
+            return true;
+        }
+
+        // the remaining pieces can only push a weaker enemy piece that has somewhere to go
+        long pushable = position.occupancy[color ^ 1] & Position.neighbours(empty);
+        while (blocked != 0) {
+            int sq = Long.numberOfTrailingZeros(blocked);
+            blocked &= blocked - 1;
+
+            int type = Position.typeOf(position.pieceAt(sq));
+            if ((Position.NEIGHBOURS[sq] & pushable & position.weaker(color ^ 1, type)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generates all moves of the given side into {@link #moves}.
+     *
+     * @param position  the position to generate moves for.
+     * @param color     the color ordinal of the side to move.
+     * @param stepsLeft the number of steps left in the turn, pushes and pulls
+     *                  need at least two.
+     * @return the number of generated moves.
+     */
+    public int generate(Position position, int color, int stepsLeft) {
+        count = 0;
+        if (stepsLeft <= 0) {
+            return 0;
+        }
+
+        long empty = ~position.occupied;
+        long enemies = position.occupancy[color ^ 1];
+        long movable = position.occupancy[color] & ~position.frozen(color);
+
+        boolean gold = color == Colors.GOLD.ordinal();
+
+        while (movable != 0) {
+            int from = Long.numberOfTrailingZeros(movable);
+            movable &= movable - 1;
+
+            int type = Position.typeOf(position.pieceAt(from));
+            long targets = Position.NEIGHBOURS[from] & empty;
+
+            // rabbits can't step backwards, gold moves up the board, silver down
+            if (type == Figures.RABBIT.ordinal()) {
+                targets &= gold ? ~(1L << from << 8) : ~(1L << from >>> 8);
+            }
+
+            // simple steps
+            long simple = targets;
+            while (simple != 0) {
+                int to = Long.numberOfTrailingZeros(simple);
+                simple &= simple - 1;
+                moves[count++] = Steps.step(from, to);
+            }
+
+            if (stepsLeft < 2 || type == Figures.RABBIT.ordinal()) {
+                continue;
+            }
+
+            long victims = Position.NEIGHBOURS[from] & enemies & position.weaker(color ^ 1, type);
+            while (victims != 0) {
+                int victim = Long.numberOfTrailingZeros(victims);
+                victims &= victims - 1;
+
+                // push: the enemy piece steps away and we take its place
+                long pushTo = Position.NEIGHBOURS[victim] & empty;
+                while (pushTo != 0) {
+                    int to = Long.numberOfTrailingZeros(pushTo);
+                    pushTo &= pushTo - 1;
+                    moves[count++] = Steps.pair(Steps.step(victim, to), Steps.step(from, victim));
+                }
+
+                // pull: we step away and the enemy piece follows into our place
+                long pullTo = targets;
+                while (pullTo != 0) {
+                    int to = Long.numberOfTrailingZeros(pullTo);
+                    pullTo &= pullTo - 1;
+                    moves[count++] = Steps.pair(Steps.step(from, to), Steps.step(victim, from));
+                }
+            }
+        }
+
+        return count;
+    }
+}
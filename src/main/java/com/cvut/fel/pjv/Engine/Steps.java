@@ -0,0 +1,158 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+
+/**
+ * The Steps class packs steps and moves into primitive ints, so the engine
+ * never has to allocate objects for them.
+ * A step is stored as {@code from | to << 6}. A move is either a single step,
+ * or two steps of a push/pull stored as {@code first | second << 12 | PAIR}.
+ */
+public final class Steps {
+    /**
+     * The flag set on moves made of two steps.
+     */
+    public static final int PAIR = 1 << 24;
+
+    private static final int STEP_MASK = (1 << 12) - 1;
+
+    // letters of the figures in the order of Figures
+    private static final String LETTERS = "RCDHME";
+
+    private Steps() {
+    }
+
+    /**
+     * Packs a single step.
+     *
+     * @param from the square the piece stands on.
+     * @param to   the destination square.
+     * @return the packed step.
+     */
+    public static int step(int from, int to) {
+        return from | (to << 6);
+    }
+
+    /**
+     * Returns the square the step starts from.
+     *
+     * @param step the packed step.
+     * @return the square index.
+     */
+    public static int from(int step) {
+        return step & 63;
+    }
+
+    /**
+     * Returns the square the step goes to.
+     *
+     * @param step the packed step.
+     * @return the square index.
+     */
+    public static int to(int step) {
+        return (step >>> 6) & 63;
+    }
+
+    /**
+     * Packs a push or pull made of two steps.
+     *
+     * @param first  the first packed step.
+     * @param second the second packed step.
+     * @return the packed move.
+     */
+    public static int pair(int first, int second) {
+        return first | (second << 12) | PAIR;
+    }
+
+    /**
+     * Returns the first step of a move.
+     *
+     * @param move the packed move.
+     * @return the packed step.
+     */
+    public static int first(int move) {
+        return move & STEP_MASK;
+    }
+
+    /**
+     * Returns the second step of a move made of two steps.
+     *
+     * @param move the packed move.
+     * @return the packed step.
+     */
+    public static int second(int move) {
+        return (move >>> 12) & STEP_MASK;
+    }
+
+    /**
+     * Returns the number of steps in a move.
+     *
+     * @param move the packed move.
+     * @return 1 for a simple step, 2 for a push or pull.
+     */
+    public static int length(int move) {
+        return (move & PAIR) != 0 ? 2 : 1;
+    }
+
+    /**
+     * Returns the Arimaa notation of a step, e.g. "Ed2n".
+     *
+     * @param position the position before the step.
+     * @param step     the packed step.
+     * @return the notation of the step.
+     */
+    public static String notation(Position position, int step) {
+        StringBuilder notation = new StringBuilder();
+        appendNotation(notation, position, step);
+        return notation.toString();
+    }
+
+    /**
+     * Appends the Arimaa notation of a step, e.g. "Ed2n", without creating a String.
+     *
+     * @param notation the builder to append to.
+     * @param position the position before the step.
+     * @param step     the packed step.
+     */
+    public static void appendNotation(StringBuilder notation, Position position, int step) {
+        int from = from(step);
+        int to = to(step);
+
+        appendPiece(notation, position.pieceAt(from), from);
+        if (to == from - 8) {
+            notation.append('n');
+        } else if (to == from + 8) {
+            notation.append('s');
+        } else if (to == from - 1) {
+            notation.append('w');
+        } else {
+            notation.append('e');
+        }
+    }
+
+    /**
+     * Appends the Arimaa notation of a capture, e.g. "Rc3x".
+     *
+     * @param notation the builder to append to.
+     * @param capture  the capture in the format of {@link Position#step(int, int)}.
+     */
+    public static void appendCapture(StringBuilder notation, int capture) {
+        appendPiece(notation, capture >>> 6, capture & 63);
+        notation.append('x');
+    }
+
+    /**
+     * Appends the letter of a piece and its square, e.g. "Ed2", as in the setup.
+     *
+     * @param notation the builder to append to.
+     * @param code     the piece code.
+     * @param square   the square index of the piece.
+     */
+    public static void appendPiece(StringBuilder notation, int code, int square) {
+        char letter = LETTERS.charAt(Position.typeOf(code));
+        notation.append(Position.colorOf(code) == Colors.GOLD.ordinal() ? letter : Character.toLowerCase(letter));
+        notation.append((char) ('a' + (square & 7)));
+        notation.append(8 - (square >> 3));
+    }
+}
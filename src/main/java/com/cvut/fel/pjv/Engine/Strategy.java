@@ -0,0 +1,63 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+
+/**
+ * The Strategy interface is implemented by everything that can choose
+ * a turn for the computer player.
+ */
+public interface Strategy {
+    /**
+     * Chooses a full turn to play. The position must be left unchanged.
+     *
+     * @param position the position at the start of the turn.
+     * @param color    the color ordinal of the side to move.
+     * @return the packed turn (see {@link Turns}), or {@link Turns#EMPTY} if
+     *         there is no legal turn.
+     */
+    long chooseTurn(Position position, int color);
+
+    /**
+     * Returns the name of the strategy, as written into saved games.
+     *
+     * @return the name of the strategy.
+     */
+    String getName();
+
+    /**
+     * Asks a running {@link #chooseTurn(Position, int)} on another thread to return
+     * as soon as possible. Strategies that are always fast ignore it.
+     */
+    default void stop() {
+    }
+
+    /**
+     * Clears an earlier {@link #stop()} before the next turn is chosen. It is
+     * called by the thread handing {@link #chooseTurn(Position, int)} to another
+     * thread, before handing it, so a stop coming in between is not lost.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Releases the threads of the strategy, it is not used afterwards.
+     */
+    default void shutdown() {
+    }
+
+    /**
+     * Creates a strategy from its name.
+     *
+     * @param name the name of the strategy, e.g. "RANDOM", "SEARCH" or "PARALLEL".
+     * @return the strategy, the random one if the name is not known.
+     */
+    static Strategy forName(String name) {
+        if (SearchEngine.NAME.equals(name)) {
+            return new SearchEngine(SearchEngine.DEFAULT_THINK_TIME);
+        }
+        if (ParallelSearch.NAME.equals(name)) {
+            return new ParallelSearch(SearchEngine.DEFAULT_THINK_TIME, ParallelSearch.DEFAULT_THREADS);
+        }
+        return new RandomStrategy();
+    }
+}
@@ -0,0 +1,280 @@
+package com.cvut.fel.pjv.Engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TranspositionTable class remembers the results of searched positions.
+ * The entries live in one primitive long array, three longs per entry:
+ * the verification word, the data and the best turn. The verification word is
+ * the position key XORed with the other two, so a thread that reads an entry
+ * half written by another thread sees a wrong key and ignores the entry.
+ * This lets all search threads share the table without any locks.
+ * <p>
+ * The entries are grouped into buckets of two. A new entry replaces the one
+ * with the same key, otherwise the one left over from an older search,
+ * otherwise the shallower one.
+ */
+public class TranspositionTable {
+    /**
+     * The default size of the table in megabytes.
+     */
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    /**
+     * The bound of an empty entry.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The score is exact.
+     */
+    public static final int EXACT = 1;
+
+    /**
+     * The score is a lower bound, the search failed high.
+     */
+    public static final int LOWER = 2;
+
+    /**
+     * The score is an upper bound, the search failed low.
+     */
+    public static final int UPPER = 3;
+
+    private static final int ENTRY_LONGS = 3;
+    private static final int BUCKET_ENTRIES = 2;
+    private static final int BUCKET_LONGS = ENTRY_LONGS * BUCKET_ENTRIES;
+
+    // layout of the data word
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int AGE_SHIFT = 42;
+
+    private final long[] table;
+    private final int mask;
+    private int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Constructs a TranspositionTable.
+     *
+     * @param sizeMb the size of the table in megabytes, it is rounded down to
+     *               a power of two number of buckets.
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Transposition table size must be positive: " + sizeMb);
+        }
+
+        long buckets = Long.highestOneBit((long) sizeMb * 1024 * 1024 / (BUCKET_LONGS * Long.BYTES));
+        buckets = Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / BUCKET_LONGS));
+        this.table = new long[(int) buckets * BUCKET_LONGS];
+        this.mask = (int) buckets - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the hash key of the position.
+     * @param out receives the data word at index 0 and the best turn at index 1.
+     * @return true if the position was found.
+     */
+    public boolean probe(long key, long[] out) {
+        probes.increment();
+        int bucket = bucket(key);
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            long turn = table[i + 2];
+            if ((table[i] ^ data ^ turn) == key && bound(data) != NONE) {
+                out[0] = data;
+                out[1] = turn;
+                hits.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param key   the hash key of the position.
+     * @param depth the depth of the search in full turns.
+     * @param score the score of the position, see {@link #toTable(int, int)}.
+     * @param bound the kind of the score: {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     * @param turn  the best turn found, or {@link Turns#EMPTY}.
+     */
+    public void store(long key, int depth, int score, int bound, long turn) {
+        int bucket = bucket(key);
+        int target = bucket;
+        int worst = Integer.MAX_VALUE;
+
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            long oldTurn = table[i + 2];
+            if ((table[i] ^ data ^ oldTurn) == key) {
+                // we keep the known best turn if the new search did not find any
+                if (turn == Turns.EMPTY) {
+                    turn = oldTurn;
+                }
+                target = i;
+                break;
+            }
+
+            // entries from older searches go first, then the shallow ones
+            int value = (age(data) == age ? 256 : 0) + depth(data);
+            if (value < worst) {
+                worst = value;
+                target = i;
+            }
+        }
+
+        long data = (score & 0xFFFFFFFFL) | ((long) depth << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT) | ((long) age << AGE_SHIFT);
+        table[target] = key ^ data ^ turn;
+        table[target + 1] = data;
+        table[target + 2] = turn;
+        stores.increment();
+    }
+
+    /**
+     * Starts a new search, the entries of the older searches get replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Removes all entries and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        age = 0;
+        probes.reset();
+        hits.reset();
+        stores.reset();
+    }
+
+    /**
+     * Returns the number of lookups since the last clear.
+     *
+     * @return the number of lookups.
+     */
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /**
+     * Returns the number of successful lookups since the last clear.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of stored entries since the last clear.
+     *
+     * @return the number of stores.
+     */
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Returns the share of successful lookups.
+     *
+     * @return the hit rate between 0 and 1.
+     */
+    public double getHitRate() {
+        long total = probes.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * Returns the number of entries the table can hold.
+     *
+     * @return the capacity of the table.
+     */
+    public int capacity() {
+        return table.length / ENTRY_LONGS;
+    }
+
+    /**
+     * Returns the score stored in a data word.
+     *
+     * @param data the data word.
+     * @return the score.
+     */
+    public static int score(long data) {
+        return (int) data;
+    }
+
+    /**
+     * Returns the depth stored in a data word.
+     *
+     * @param data the data word.
+     * @return the depth in full turns.
+     */
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Returns the bound stored in a data word.
+     *
+     * @param data the data word.
+     * @return the bound.
+     */
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * Converts a score to be stored, wins are counted from the stored position
+     * instead of the root, so that they stay correct when found again elsewhere.
+     *
+     * @param score the score relative to the root.
+     * @param ply   the distance of the position from the root.
+     * @return the score to store.
+     */
+    public static int toTable(int score, int ply) {
+        if (score > Evaluator.WIN_BOUND) {
+            return score + ply;
+        }
+        if (score < -Evaluator.WIN_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a stored score back, the reverse of {@link #toTable(int, int)}.
+     *
+     * @param score the stored score.
+     * @param ply   the distance of the position from the root.
+     * @return the score relative to the root.
+     */
+    public static int fromTable(int score, int ply) {
+        if (score > Evaluator.WIN_BOUND) {
+            return score - ply;
+        }
+        if (score < -Evaluator.WIN_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & 0xFF;
+    }
+
+    private int bucket(long key) {
+        // the low bits of the key pick the bucket, the whole key is verified
+        return ((int) (key ^ (key >>> 32)) & mask) * BUCKET_LONGS;
+    }
+}
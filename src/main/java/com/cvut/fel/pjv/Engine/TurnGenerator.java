@@ -0,0 +1,113 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Models.Zobrist;
+
+import java.util.Arrays;
+
+/**
+ * The TurnGenerator class enumerates all distinct end-of-turn positions
+ * reachable with one to four steps. Many step orders lead to the same
+ * position, so each turn is kept only for the first order that reaches it,
+ * and positions already expanded with the same number of steps used are not
+ * expanded again. Both checks use the Zobrist key of the placement. The turn
+ * that leaves the position unchanged is never generated, as such a turn
+ * can't be finished.
+ */
+public class TurnGenerator {
+    /**
+     * The buffer with the generated turns, see {@link Turns}.
+     */
+    public long[] turns;
+
+    /**
+     * The number of turns generated by the last call.
+     */
+    public int count;
+
+    // one buffer for each number of steps already used in the turn
+    private final StepGenerator[] generators;
+
+    private final LongHashSet ends;
+    private final LongHashSet expanded;
+
+    /**
+     * Constructs a TurnGenerator.
+     */
+    public TurnGenerator() {
+        this.turns = new long[4096];
+        this.generators = new StepGenerator[Turns.MAX_STEPS];
+        for (int i = 0; i < Turns.MAX_STEPS; ++i) {
+            generators[i] = new StepGenerator();
+        }
+        this.ends = new LongHashSet(1 << 15);
+        this.expanded = new LongHashSet(1 << 14);
+    }
+
+    /**
+     * Generates all distinct turns of the given side into {@link #turns}.
+     * The position is restored before the method returns.
+     *
+     * @param position the position to generate turns for.
+     * @param color    the color ordinal of the side to move.
+     * @return the number of generated turns.
+     */
+    public int generate(Position position, int color) {
+        count = 0;
+        ends.clear();
+        expanded.clear();
+
+        // the start position is not a valid end of the turn
+        ends.add(position.hash());
+        expand(position, color, 0, Turns.EMPTY);
+
+        return count;
+    }
+
+    /**
+     * Expands all moves from a position in the middle of the turn.
+     *
+     * @param position the current position.
+     * @param color    the color ordinal of the side to move.
+     * @param used     the number of steps used so far.
+     * @param turn     the steps made so far.
+     */
+    private void expand(Position position, int color, int used, long turn) {
+        StepGenerator generator = generators[used];
+        int moves = generator.generate(position, color, Turns.MAX_STEPS - used);
+
+        for (int i = 0; i < moves; ++i) {
+            int move = generator.moves[i];
+            int first = Steps.first(move);
+            int second = Steps.second(move);
+            boolean pair = Steps.length(move) == 2;
+
+            int firstCapture = position.step(Steps.from(first), Steps.to(first));
+            int secondCapture = pair ? position.step(Steps.from(second), Steps.to(second)) : Position.NO_CAPTURE;
+
+            int nowUsed = used + (pair ? 2 : 1);
+            long nowTurn = Turns.appendMove(turn, move);
+            long hash = position.hash();
+
+            if (ends.add(hash)) {
+                add(nowTurn);
+            }
+
+            if (nowUsed < Turns.MAX_STEPS && expanded.add(hash ^ Zobrist.STEPS[nowUsed])) {
+                expand(position, color, nowUsed, nowTurn);
+            }
+
+            if (pair) {
+                position.undoStep(Steps.from(second), Steps.to(second), secondCapture);
+            }
+            position.undoStep(Steps.from(first), Steps.to(first), firstCapture);
+        }
+    }
+
+    private void add(long turn) {
+        if (count == turns.length) {
+            turns = Arrays.copyOf(turns, turns.length * 2);
+        }
+        turns[count++] = turn;
+    }
+}
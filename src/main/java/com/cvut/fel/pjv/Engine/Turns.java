@@ -0,0 +1,98 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+
+/**
+ * The Turns class packs a whole turn of up to four steps into a primitive long.
+ * Each step takes 12 bits (see {@link Steps#step(int, int)}), the number of
+ * steps is stored above them, in bits 48 to 50.
+ */
+public final class Turns {
+    /**
+     * The maximum number of steps in one turn.
+     */
+    public static final int MAX_STEPS = 4;
+
+    /**
+     * The empty turn without any steps.
+     */
+    public static final long EMPTY = 0L;
+
+    private static final int LENGTH_SHIFT = 48;
+
+    private Turns() {
+    }
+
+    /**
+     * Returns the number of steps in a turn.
+     *
+     * @param turn the packed turn.
+     * @return the number of steps between 0 and 4.
+     */
+    public static int length(long turn) {
+        return (int) (turn >>> LENGTH_SHIFT);
+    }
+
+    /**
+     * Returns one step of a turn.
+     *
+     * @param turn  the packed turn.
+     * @param index the index of the step.
+     * @return the packed step.
+     */
+    public static int step(long turn, int index) {
+        return (int) (turn >>> (index * 12)) & 0xFFF;
+    }
+
+    /**
+     * Appends a step to a turn.
+     *
+     * @param turn the packed turn.
+     * @param step the packed step to append.
+     * @return the packed turn with the step appended.
+     */
+    public static long append(long turn, int step) {
+        int length = length(turn);
+        long steps = turn & ((1L << LENGTH_SHIFT) - 1);
+        return steps | ((long) step << (length * 12)) | ((long) (length + 1) << LENGTH_SHIFT);
+    }
+
+    /**
+     * Appends all steps of a move to a turn.
+     *
+     * @param turn the packed turn.
+     * @param move the packed move, see {@link Steps}.
+     * @return the packed turn with the move appended.
+     */
+    public static long appendMove(long turn, int move) {
+        turn = append(turn, Steps.first(move));
+        if (Steps.length(move) == 2) {
+            turn = append(turn, Steps.second(move));
+        }
+        return turn;
+    }
+
+    /**
+     * Returns the Arimaa notation of a turn, e.g. "Ed2n Ed3n".
+     * The position is not changed.
+     *
+     * @param position the position before the turn.
+     * @param turn     the packed turn.
+     * @return the notation of the turn.
+     */
+    public static String notation(Position position, long turn) {
+        Position copy = new Position();
+        copy.copyFrom(position);
+
+        StringBuilder notation = new StringBuilder();
+        for (int i = 0; i < length(turn); ++i) {
+            int step = step(turn, i);
+            if (i > 0) {
+                notation.append(' ');
+            }
+            notation.append(Steps.notation(copy, step));
+            copy.step(Steps.from(step), Steps.to(step));
+        }
+        return notation.toString();
+    }
+}
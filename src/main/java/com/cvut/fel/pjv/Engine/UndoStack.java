@@ -0,0 +1,179 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+
+/**
+ * The UndoStack class remembers the steps of a turn so they can be taken
+ * back. Each entry is a single primitive long holding the step, the piece it
+ * captured and the turn context before the step (see {@link Rules}), so
+ * making and unmaking steps never allocates anything.
+ * <p>
+ * An entry is laid out as follows:
+ * <ul>
+ * <li>bits 0-11: the step, see {@link Steps#step(int, int)},</li>
+ * <li>bits 12-21: the capture plus one, zero if nothing was captured,</li>
+ * <li>bits 22-54: the turn context before the step,</li>
+ * <li>bits 55-62: a mark the caller gets back, e.g. the length of the notation before the step.</li>
+ * </ul>
+ */
+public class UndoStack {
+    /**
+     * The largest mark an entry can hold.
+     */
+    public static final int MAX_MARK = 255;
+
+    private static final int CAPTURE_SHIFT = 12;
+    private static final int CONTEXT_SHIFT = 22;
+    private static final int MARK_SHIFT = 55;
+    private static final long CONTEXT_MASK = (1L << (MARK_SHIFT - CONTEXT_SHIFT)) - 1;
+
+    private final long[] entries;
+    private int size;
+
+    /**
+     * Constructs an UndoStack for one turn.
+     */
+    public UndoStack() {
+        this(Rules.MAX_STEPS);
+    }
+
+    /**
+     * Constructs an UndoStack.
+     *
+     * @param capacity the largest number of steps it has to hold.
+     */
+    public UndoStack(int capacity) {
+        this.entries = new long[capacity];
+    }
+
+    /**
+     * Packs a step into an entry.
+     *
+     * @param from    the square the piece came from.
+     * @param to      the square the piece stepped to.
+     * @param capture the capture of the step, see {@link Position#step(int, int)}.
+     * @param context the turn context before the step.
+     * @param mark    a number between 0 and {@link #MAX_MARK} returned with the entry.
+     * @return the packed entry.
+     */
+    public static long encode(int from, int to, int capture, long context, int mark) {
+        return Steps.step(from, to)
+                | ((long) (capture + 1) << CAPTURE_SHIFT)
+                | ((context & CONTEXT_MASK) << CONTEXT_SHIFT)
+                | ((long) mark << MARK_SHIFT);
+    }
+
+    /**
+     * Returns the square the step of an entry came from.
+     *
+     * @param entry the packed entry.
+     * @return the square index.
+     */
+    public static int from(long entry) {
+        return (int) entry & 63;
+    }
+
+    /**
+     * Returns the square the step of an entry went to.
+     *
+     * @param entry the packed entry.
+     * @return the square index.
+     */
+    public static int to(long entry) {
+        return (int) (entry >>> 6) & 63;
+    }
+
+    /**
+     * Returns the capture of the step of an entry.
+     *
+     * @param entry the packed entry.
+     * @return the capture in the format of {@link Position#step(int, int)}.
+     */
+    public static int capture(long entry) {
+        return (int) ((entry >>> CAPTURE_SHIFT) & 0x3FF) - 1;
+    }
+
+    /**
+     * Returns the turn context before the step of an entry.
+     *
+     * @param entry the packed entry.
+     * @return the turn context.
+     */
+    public static long context(long entry) {
+        return (entry >>> CONTEXT_SHIFT) & CONTEXT_MASK;
+    }
+
+    /**
+     * Returns the mark of an entry.
+     *
+     * @param entry the packed entry.
+     * @return the mark given to {@link #encode}.
+     */
+    public static int mark(long entry) {
+        return (int) (entry >>> MARK_SHIFT);
+    }
+
+    /**
+     * Checks a step by the rules and makes it if it is legal.
+     *
+     * @param position the position to make the step in.
+     * @param context  the turn context before the step.
+     * @param color    the color ordinal of the side to move.
+     * @param from     the square the piece stands on.
+     * @param to       the destination square.
+     * @return the turn context after the step, or {@link Rules#ILLEGAL}.
+     */
+    public long make(Position position, long context, int color, int from, int to) {
+        long next = Rules.play(position, context, color, from, to);
+        if (next != Rules.ILLEGAL) {
+            push(encode(from, to, Rules.capture(next), context, 0));
+        }
+        return next;
+    }
+
+    /**
+     * Takes back the last step made by {@link #make}.
+     *
+     * @param position the position the step was made in.
+     * @return the turn context before the step.
+     */
+    public long unmake(Position position) {
+        long entry = pop();
+        position.undoStep(from(entry), to(entry), capture(entry));
+        return context(entry);
+    }
+
+    /**
+     * Adds an entry on top of the stack.
+     *
+     * @param entry the packed entry.
+     */
+    public void push(long entry) {
+        entries[size++] = entry;
+    }
+
+    /**
+     * Removes the entry on top of the stack.
+     *
+     * @return the removed entry.
+     */
+    public long pop() {
+        return entries[--size];
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of remembered steps.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Forgets all entries, e.g. when the turn is finished.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -1,6 +1,12 @@
 package com.cvut.fel.pjv;
 
 import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Utilities.GameJournal;
+import com.cvut.fel.pjv.Utilities.GameMetrics;
+import com.cvut.fel.pjv.Utilities.StepTrace;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,24 +25,54 @@ public class Main {
      * arguments, and starts the game.
      * 
      * @param args Command-line arguments. If provided, the first argument specifies
-     *             the logging level (DEBUG, INFO, WARN, ERROR).
+     *             the logging level (DEBUG, INFO, WARN, ERROR), it may be followed
+     *             by "TRACE" to write every step into a binary trace (see
+     *             {@link StepTrace}) and "METRICS" to dump the metrics into the logs
+     *             (see {@link GameMetrics}).
      */
     public static void main(String[] args) {
-        String logLevel = args.length == 1 ? args[0] : "INFO"; // Default to INFO if no parameter provided
+        String logLevel = args.length >= 1 ? args[0] : "INFO"; // Default to INFO if no parameter provided
         boolean logs = false; // Parameter that defines if the logs are turned on
+        boolean trace = false;
+        boolean metrics = false;
+        for (int i = 1; i < args.length; ++i) {
+            trace |= args[i].equalsIgnoreCase("TRACE");
+            metrics |= args[i].equalsIgnoreCase("METRICS");
+        }
 
-        if (args.length == 1) { // if yes, we create logger
+        if (args.length >= 1) { // if yes, we create logger
             logger = LoggerFactory.getLogger(Main.class);
             logs = true;
             configureLogging(logLevel);
         }
 
         if (logs) {
-            logger.info("Game started with logging {} enabled");
+            logger.info("Game started with logging {} enabled", logLevel);
         }
 
         // launch of the game
         GameController game = new GameController(logs);
+        // every game in progress is journaled, so it can be resumed after a crash
+        game.serializer.journal = new GameJournal(Path.of("arimaa", "journal"));
+        // the steps are traced next to the logs, instead of dumping the board into them
+        if (trace) {
+            try {
+                game.trace = new StepTrace(Path.of("arimaa", "logs", "trace_" + System.currentTimeMillis() + ".bin"));
+            } catch (IOException e) {
+                logger.error("The step trace could not be created: {}", e.getMessage());
+            }
+        }
+        // the metrics can always be watched over JMX, they are dumped only when asked for
+        game.metrics.register();
+        if (metrics) {
+            try {
+                game.metrics.startDumps(Path.of("arimaa", "logs"), GameMetrics.DEFAULT_DUMP_MILLIS);
+            } catch (IOException e) {
+                logger.error("The metrics could not be dumped: {}", e.getMessage());
+            }
+        }
+        // we stop the clock and the AI threads when the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(game::shutdown));
         game.start();
     }
 
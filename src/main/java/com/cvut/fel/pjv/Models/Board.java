@@ -6,12 +6,23 @@ import com.cvut.fel.pjv.Utilities.Figures;
 /**
  * The Board class represents the game board for a strategy game.
  * It holds the pieces on the board and provides methods to initialize, clear, and query the board state.
+ * The pieces are stored in a bitboard {@link Position}, the 2D array of pieces is kept as a
+ * compatibility view for the GUI and the notation.
+ * <p>
+ * The position is always up to date, as the array can only be read from
+ * outside, see {@link #pieceAt(int, int)}, and the pieces are only changed
+ * through the methods of the board. A whole array of pieces is put in with
+ * {@link #setBoard(Piece[][])}.
  */
 public class Board {
+    // the 2D array of pieces, it is only changed through the methods of the board,
+    // so it never differs from the position
+    private Piece[][] board;
+
     /**
-     * The 2D array representing the board with pieces.
+     * The bitboard representation of the same pieces.
      */
-    public Piece[][] board;
+    public Position position;
 
     /**
      * The size of the board, fixed at 8x8.
@@ -28,6 +39,7 @@ public class Board {
      */
     public Board() {
         this.board = new Piece[boardSize][boardSize];
+        this.position = new Position();
     }
 
     /**
@@ -39,6 +51,7 @@ public class Board {
                 board[i][j] = null;
             }
         }
+        position.clear();
     }
 
     /**
@@ -65,6 +78,126 @@ public class Board {
         board[boardSize - 2][2] = board[boardSize - 2][boardSize - 3] = new Piece(Figures.CAT, Colors.GOLD);
         board[boardSize - 2][3] = new Piece(Figures.ELEPHANT, Colors.GOLD);
         board[boardSize - 2][4] = new Piece(Figures.CAMEL, Colors.GOLD);
+
+        sync();
+    }
+
+    /**
+     * Replaces all pieces with the pieces of an array, the position is brought
+     * up to date once.
+     *
+     * @param pieces the 8x8 array of pieces, it is copied.
+     */
+    public void setBoard(Piece[][] pieces) {
+        for (int i = 0; i < boardSize; ++i) {
+            System.arraycopy(pieces[i], 0, board[i], 0, boardSize);
+        }
+        sync();
+    }
+
+    /**
+     * Returns the piece on the given position.
+     *
+     * @param row the row index of the position.
+     * @param col the column index of the position.
+     * @return the piece, or null if the position is empty.
+     */
+    public Piece pieceAt(int row, int col) {
+        return board[row][col];
+    }
+
+    /**
+     * Places a piece on the given position, replacing whatever was there.
+     *
+     * @param row   the row index of the position.
+     * @param col   the column index of the position.
+     * @param piece the piece to place, or null to empty the position.
+     */
+    public void setPiece(int row, int col, Piece piece) {
+        int sq = Position.square(row, col);
+        position.remove(sq);
+        if (piece != null) {
+            position.put(sq, piece.getCode());
+        }
+        board[row][col] = piece;
+    }
+
+    /**
+     * Removes the piece from the given position.
+     *
+     * @param row the row index of the position.
+     * @param col the column index of the position.
+     * @return the removed piece, or null if the position was empty.
+     */
+    public Piece removePiece(int row, int col) {
+        Piece piece = board[row][col];
+        position.remove(Position.square(row, col));
+        board[row][col] = null;
+        return piece;
+    }
+
+    /**
+     * Moves a piece to an empty position.
+     *
+     * @param oldRow the row index the piece stands on.
+     * @param oldCol the column index the piece stands on.
+     * @param newRow the row index of the destination.
+     * @param newCol the column index of the destination.
+     */
+    public void movePiece(int oldRow, int oldCol, int newRow, int newCol) {
+        position.move(Position.square(oldRow, oldCol), Position.square(newRow, newCol));
+        board[newRow][newCol] = board[oldRow][oldCol];
+        board[oldRow][oldCol] = null;
+    }
+
+    /**
+     * Swaps the pieces on two positions, used while placing the figures.
+     *
+     * @param row1 the row index of the first position.
+     * @param col1 the column index of the first position.
+     * @param row2 the row index of the second position.
+     * @param col2 the column index of the second position.
+     */
+    public void swapPieces(int row1, int col1, int row2, int col2) {
+        Piece first = board[row1][col1];
+        setPiece(row1, col1, board[row2][col2]);
+        setPiece(row2, col2, first);
+    }
+
+    /**
+     * Brings the bitboards up to date with the 2D array, after the array was
+     * filled as a whole. Only the squares that differ are touched.
+     */
+    private void sync() {
+        for (int i = 0; i < boardSize; ++i) {
+            for (int j = 0; j < boardSize; ++j) {
+                int sq = Position.square(i, j);
+                int code = board[i][j] == null ? Position.EMPTY : board[i][j].getCode();
+                if (position.pieceAt(sq) != code) {
+                    position.remove(sq);
+                    if (code != Position.EMPTY) {
+                        position.put(sq, code);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the 2D array up to date with the bitboards,
+     * after they were changed directly, e.g. by replaying a loaded game.
+     * Only the squares that differ are touched.
+     */
+    public void syncPieces() {
+        for (int i = 0; i < boardSize; ++i) {
+            for (int j = 0; j < boardSize; ++j) {
+                int code = position.pieceAt(Position.square(i, j));
+                int shown = board[i][j] == null ? Position.EMPTY : board[i][j].getCode();
+                if (shown != code) {
+                    board[i][j] = code == Position.EMPTY ? null : new Piece(code);
+                }
+            }
+        }
     }
 
     /**
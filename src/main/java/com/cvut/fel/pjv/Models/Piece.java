@@ -23,6 +23,15 @@ public class Piece {
         this.type = type;
     }
 
+    /**
+     * Constructs a Piece from its code used by the bitboard representation.
+     *
+     * @param code the piece code, see {@link Position#code(Colors, Figures)}.
+     */
+    public Piece(int code) {
+        this(Figures.values()[Position.typeOf(code)], Colors.values()[Position.colorOf(code)]);
+    }
+
     /**
      * Constructs a Piece from a string notation.
      * The notation determines the type and color of the piece.
@@ -68,6 +77,15 @@ public class Piece {
         return color;
     }
 
+    /**
+     * Gets the code of the piece used by the bitboard representation.
+     *
+     * @return the piece code, see {@link Position#code(Colors, Figures)}.
+     */
+    public int getCode() {
+        return Position.code(color, type);
+    }
+
     /**
      * Gets the notation of the piece.
      * The notation is a single character representing the type of the piece,
@@ -0,0 +1,555 @@
+package com.cvut.fel.pjv.Models;
+
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+import java.util.Arrays;
+
+/**
+ * The Position class is a bitboard representation of the game board.
+ * Every combination of color and figure type owns one 64-bit long, where the
+ * bit {@code row * 8 + col} is set if such a piece stands on that square.
+ * Occupancy masks for both colors and for the whole board are kept alongside,
+ * so the rules can be checked with a few bit operations instead of walking
+ * through Piece objects.
+ * <p>
+ * The frozen pieces and the traps guarded by each color are kept up to date
+ * as well. A step can only change them next to the squares it touches, so
+ * only those are looked at again, and asking whether a piece is frozen is
+ * a single bit test.
+ */
+public class Position {
+    /**
+     * The code of an empty square.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The number of figure types, one bitboard per type and color.
+     */
+    public static final int TYPES = 6;
+
+    /**
+     * The number of bitboards, one for each color and figure type.
+     */
+    public static final int PIECE_CODES = 2 * TYPES;
+
+    /**
+     * The number of squares on the board.
+     */
+    public static final int SQUARES = 64;
+
+    /**
+     * Mask of the first column (file a).
+     */
+    public static final long FILE_A = 0x0101010101010101L;
+
+    /**
+     * Mask of the last column (file h).
+     */
+    public static final long FILE_H = 0x8080808080808080L;
+
+    /**
+     * Mask of the top row of the board (rank 8), the goal row for gold.
+     */
+    public static final long RANK_8 = 0x00000000000000FFL;
+
+    /**
+     * Mask of the bottom row of the board (rank 1), the goal row for silver.
+     */
+    public static final long RANK_1 = 0xFF00000000000000L;
+
+    /**
+     * Masks of the goal rows, indexed by {@link Colors#ordinal()}.
+     */
+    public static final long[] GOALS = { RANK_1, RANK_8 };
+
+    /**
+     * Mask of all squares on the edge of the board.
+     */
+    public static final long EDGES = FILE_A | FILE_H | RANK_8 | RANK_1;
+
+    /**
+     * Mask of the four trap squares c3, f3, c6 and f6.
+     */
+    public static final long TRAPS = (1L << 18) | (1L << 21) | (1L << 42) | (1L << 45);
+
+    /**
+     * The value returned by {@link #step(int, int)} if no piece was captured.
+     */
+    public static final int NO_CAPTURE = -1;
+
+    /**
+     * Precomputed masks of orthogonal neighbours for each square.
+     */
+    public static final long[] NEIGHBOURS = new long[SQUARES];
+
+    static {
+        for (int sq = 0; sq < SQUARES; ++sq) {
+            NEIGHBOURS[sq] = neighbours(1L << sq);
+        }
+    }
+
+    /**
+     * Bitboards of pieces, indexed by {@link #code(Colors, Figures)}.
+     */
+    public final long[] pieces = new long[PIECE_CODES];
+
+    /**
+     * Occupancy masks of each color, indexed by {@link Colors#ordinal()}.
+     */
+    public final long[] occupancy = new long[2];
+
+    /**
+     * Mask of all occupied squares.
+     */
+    public long occupied;
+
+    /**
+     * The Zobrist key of the position, including the side to move and the steps used.
+     */
+    public long key;
+
+    /**
+     * Mask of all frozen pieces of both colors.
+     */
+    public long frozen;
+
+    /**
+     * Masks of the traps with a piece of each color next to them, indexed by
+     * {@link Colors#ordinal()}. A piece of that color is safe on such a trap.
+     */
+    public final long[] guardedTraps = new long[2];
+
+    // piece code on each square, so that lookups do not have to test all bitboards
+    private final byte[] squares = new byte[SQUARES];
+
+    private int side;
+    private int stepsUsed;
+
+    /**
+     * Constructs an empty Position with gold to move.
+     */
+    public Position() {
+        Arrays.fill(squares, (byte) EMPTY);
+        this.side = Colors.GOLD.ordinal();
+        this.key = Zobrist.SIDE[side];
+    }
+
+    /**
+     * Returns the piece code for the given color and figure type.
+     *
+     * @param color the color of the piece.
+     * @param type  the type of the piece.
+     * @return the piece code between 0 and 11.
+     */
+    public static int code(Colors color, Figures type) {
+        return color.ordinal() * TYPES + type.ordinal();
+    }
+
+    /**
+     * Returns the color ordinal encoded in a piece code.
+     *
+     * @param code the piece code.
+     * @return the ordinal of the piece's color.
+     */
+    public static int colorOf(int code) {
+        return code / TYPES;
+    }
+
+    /**
+     * Returns the type ordinal encoded in a piece code.
+     *
+     * @param code the piece code.
+     * @return the ordinal of the piece's type.
+     */
+    public static int typeOf(int code) {
+        return code % TYPES;
+    }
+
+    /**
+     * Returns the square index of the given row and column.
+     *
+     * @param row the row index.
+     * @param col the column index.
+     * @return the square index between 0 and 63.
+     */
+    public static int square(int row, int col) {
+        return (row << 3) | col;
+    }
+
+    /**
+     * Returns the mask of all squares orthogonally adjacent to the given squares.
+     *
+     * @param mask the squares to spread.
+     * @return the mask of the neighbouring squares.
+     */
+    public static long neighbours(long mask) {
+        return (mask >>> 8) | (mask << 8) | ((mask & ~FILE_A) >>> 1) | ((mask & ~FILE_H) << 1);
+    }
+
+    /**
+     * Returns the piece code on a square.
+     *
+     * @param sq the square index.
+     * @return the piece code, or {@link #EMPTY} if the square is empty.
+     */
+    public int pieceAt(int sq) {
+        return squares[sq];
+    }
+
+    /**
+     * Places a piece on an empty square.
+     *
+     * @param sq   the square index.
+     * @param code the piece code.
+     */
+    public void put(int sq, int code) {
+        place(sq, code);
+        refresh(sq);
+    }
+
+    /**
+     * Removes the piece from a square.
+     *
+     * @param sq the square index.
+     * @return the code of the removed piece, or {@link #EMPTY} if there was none.
+     */
+    public int remove(int sq) {
+        int code = lift(sq);
+        if (code != EMPTY) {
+            refresh(sq);
+        }
+        return code;
+    }
+
+    /**
+     * Moves a piece from one square to an empty square.
+     *
+     * @param from the square the piece stands on.
+     * @param to   the empty destination square.
+     */
+    public void move(int from, int to) {
+        place(to, lift(from));
+        refresh(from, to);
+    }
+
+    /**
+     * Makes a single step and removes the piece that was left unprotected on a trap.
+     * Only the trap the piece stepped on and the traps next to the square it left
+     * can lose their protection, and at most one of them can do so in one step.
+     *
+     * @param from the square the piece stands on.
+     * @param to   the empty destination square.
+     * @return the captured piece packed as {@code code << 6 | square}, or
+     *         {@link #NO_CAPTURE} if nothing was captured.
+     */
+    public int step(int from, int to) {
+        move(from, to);
+
+        long traps = TRAPS & occupied & (NEIGHBOURS[from] | (1L << to));
+        while (traps != 0) {
+            int sq = Long.numberOfTrailingZeros(traps);
+            traps &= traps - 1;
+
+            int code = squares[sq];
+            if ((guardedTraps[colorOf(code)] & (1L << sq)) == 0) {
+                remove(sq);
+                return (code << 6) | sq;
+            }
+        }
+        return NO_CAPTURE;
+    }
+
+    /**
+     * Takes back a step made by {@link #step(int, int)}.
+     *
+     * @param from    the square the piece came from.
+     * @param to      the square the piece stepped to.
+     * @param capture the value returned by {@link #step(int, int)}.
+     */
+    public void undoStep(int from, int to, int capture) {
+        if (capture != NO_CAPTURE) {
+            put(capture & 63, capture >>> 6);
+        }
+        move(to, from);
+    }
+
+    /**
+     * Removes all pieces from the position.
+     */
+    public void clear() {
+        Arrays.fill(pieces, 0L);
+        occupancy[0] = 0L;
+        occupancy[1] = 0L;
+        occupied = 0L;
+        frozen = 0L;
+        guardedTraps[0] = 0L;
+        guardedTraps[1] = 0L;
+        Arrays.fill(squares, (byte) EMPTY);
+        key = Zobrist.SIDE[side] ^ Zobrist.STEPS[stepsUsed];
+    }
+
+    /**
+     * Makes this position an exact copy of another one.
+     *
+     * @param other the position to copy.
+     */
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, PIECE_CODES);
+        occupancy[0] = other.occupancy[0];
+        occupancy[1] = other.occupancy[1];
+        occupied = other.occupied;
+        frozen = other.frozen;
+        guardedTraps[0] = other.guardedTraps[0];
+        guardedTraps[1] = other.guardedTraps[1];
+        System.arraycopy(other.squares, 0, squares, 0, SQUARES);
+        key = other.key;
+        side = other.side;
+        stepsUsed = other.stepsUsed;
+    }
+
+    /**
+     * Returns the color ordinal of the side to move.
+     *
+     * @return the side to move.
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * Sets the side to move, updating the key.
+     *
+     * @param side the color ordinal of the side to move.
+     */
+    public void setSide(int side) {
+        key ^= Zobrist.SIDE[this.side] ^ Zobrist.SIDE[side];
+        this.side = side;
+    }
+
+    /**
+     * Returns the number of steps used in the current turn.
+     *
+     * @return the steps used, between 0 and 4.
+     */
+    public int getStepsUsed() {
+        return stepsUsed;
+    }
+
+    /**
+     * Sets the number of steps used in the current turn, updating the key.
+     *
+     * @param stepsUsed the steps used, between 0 and 4.
+     */
+    public void setStepsUsed(int stepsUsed) {
+        key ^= Zobrist.STEPS[this.stepsUsed] ^ Zobrist.STEPS[stepsUsed];
+        this.stepsUsed = stepsUsed;
+    }
+
+    /**
+     * Returns the rabbits of one color, the bitboard is kept up to date with
+     * every step, so counting them is a single bit count.
+     *
+     * @param color the color ordinal of the rabbits.
+     * @return the mask of the rabbits.
+     */
+    public long rabbits(int color) {
+        return pieces[color * TYPES + Figures.RABBIT.ordinal()];
+    }
+
+    /**
+     * Returns the rabbits of one color standing on their goal row.
+     *
+     * @param color the color ordinal of the rabbits.
+     * @return the mask of the rabbits that reached the goal.
+     */
+    public long goalRabbits(int color) {
+        return rabbits(color) & GOALS[color];
+    }
+
+    /**
+     * Returns the mask of pieces of the given color stronger than the given type.
+     *
+     * @param color the color ordinal of the pieces.
+     * @param type  the type ordinal to compare with.
+     * @return the mask of the stronger pieces.
+     */
+    public long stronger(int color, int type) {
+        long mask = 0L;
+        for (int t = type + 1; t < TYPES; ++t) {
+            mask |= pieces[color * TYPES + t];
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the mask of pieces of the given color weaker than the given type.
+     *
+     * @param color the color ordinal of the pieces.
+     * @param type  the type ordinal to compare with.
+     * @return the mask of the weaker pieces.
+     */
+    public long weaker(int color, int type) {
+        long mask = 0L;
+        for (int t = 0; t < type; ++t) {
+            mask |= pieces[color * TYPES + t];
+        }
+        return mask;
+    }
+
+    /**
+     * Checks if the piece on a square is frozen, i.e. it has no friendly
+     * neighbour and a stronger enemy piece is next to it.
+     *
+     * @param sq the square index of the piece.
+     * @return true if the piece is frozen, false otherwise or if the square is empty.
+     */
+    public boolean isFrozen(int sq) {
+        return (frozen & (1L << sq)) != 0;
+    }
+
+    /**
+     * Returns the mask of all frozen pieces of one color.
+     *
+     * @param color the color ordinal of the pieces.
+     * @return the mask of the frozen pieces.
+     */
+    public long frozen(int color) {
+        return frozen & occupancy[color];
+    }
+
+    /**
+     * Computes the mask of all frozen pieces of one color from scratch,
+     * the result always equals {@link #frozen(int)}.
+     *
+     * @param color the color ordinal of the pieces.
+     * @return the mask of the frozen pieces.
+     */
+    public long computeFrozen(int color) {
+        long unguarded = ~neighbours(occupancy[color]);
+        long frozen = 0L;
+        long enemyStronger = 0L;
+
+        // we go from the elephant down, collecting stronger enemy pieces on the way
+        for (int t = TYPES - 1; t >= 0; --t) {
+            frozen |= pieces[color * TYPES + t] & unguarded & neighbours(enemyStronger);
+            enemyStronger |= pieces[(color ^ 1) * TYPES + t];
+        }
+        return frozen;
+    }
+
+    /**
+     * Places a piece on an empty square without updating the frozen pieces and traps.
+     *
+     * @param sq   the square index.
+     * @param code the piece code.
+     */
+    private void place(int sq, int code) {
+        long bit = 1L << sq;
+        pieces[code] |= bit;
+        occupancy[colorOf(code)] |= bit;
+        occupied |= bit;
+        squares[sq] = (byte) code;
+        key ^= Zobrist.piece(code, sq);
+    }
+
+    /**
+     * Removes the piece from a square without updating the frozen pieces and traps.
+     *
+     * @param sq the square index.
+     * @return the code of the removed piece, or {@link #EMPTY} if there was none.
+     */
+    private int lift(int sq) {
+        int code = squares[sq];
+        if (code == EMPTY) {
+            return EMPTY;
+        }
+
+        long bit = ~(1L << sq);
+        pieces[code] &= bit;
+        occupancy[colorOf(code)] &= bit;
+        occupied &= bit;
+        squares[sq] = (byte) EMPTY;
+        key ^= Zobrist.piece(code, sq);
+        return code;
+    }
+
+    /**
+     * Updates the frozen pieces and guarded traps after the given square changed.
+     *
+     * @param sq the changed square.
+     */
+    private void refresh(int sq) {
+        update((1L << sq) | NEIGHBOURS[sq]);
+    }
+
+    /**
+     * Updates the frozen pieces and guarded traps after a piece moved.
+     *
+     * @param from the square the piece left.
+     * @param to   the square the piece stepped to.
+     */
+    private void refresh(int from, int to) {
+        update((1L << from) | (1L << to) | NEIGHBOURS[from] | NEIGHBOURS[to]);
+    }
+
+    /**
+     * Looks again at the given squares, only the pieces and traps there
+     * can change when their neighbourhood does.
+     *
+     * @param area the squares to look at.
+     */
+    private void update(long area) {
+        frozen &= ~area;
+
+        long changed = area & occupied;
+        while (changed != 0) {
+            int sq = Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+
+            int code = squares[sq];
+            int color = colorOf(code);
+            long around = NEIGHBOURS[sq];
+            if ((around & occupancy[color]) == 0 && (around & stronger(color ^ 1, typeOf(code))) != 0) {
+                frozen |= 1L << sq;
+            }
+        }
+
+        long traps = area & TRAPS;
+        while (traps != 0) {
+            int sq = Long.numberOfTrailingZeros(traps);
+            traps &= traps - 1;
+
+            long bit = 1L << sq;
+            for (int color = 0; color < 2; ++color) {
+                if ((NEIGHBOURS[sq] & occupancy[color]) != 0) {
+                    guardedTraps[color] |= bit;
+                } else {
+                    guardedTraps[color] &= ~bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the Zobrist key of the placement of the pieces only,
+     * without the side to move and the steps used.
+     *
+     * @return the placement key, zero for an empty board.
+     */
+    public long hash() {
+        return key ^ Zobrist.SIDE[side] ^ Zobrist.STEPS[stepsUsed];
+    }
+
+    /**
+     * Checks if both positions have the same pieces on the same squares.
+     * Unlike comparing {@link #hash()}, this can't be fooled by a collision.
+     *
+     * @param other the position to compare with.
+     * @return true if the placement of the pieces is identical.
+     */
+    public boolean samePlacement(Position other) {
+        return Arrays.equals(pieces, other.pieces);
+    }
+}
@@ -0,0 +1,56 @@
+package com.cvut.fel.pjv.Models;
+
+import java.util.SplittableRandom;
+
+/**
+ * The Zobrist class holds the random keys used to hash positions.
+ * The key of a position is the XOR of the keys of all pieces on their squares,
+ * the key of the side to move and the key of the number of steps used in the
+ * turn, so it can be updated with a single XOR on every change.
+ * The keys are generated from a fixed seed, so they are the same in every run.
+ */
+public final class Zobrist {
+    /**
+     * Keys of the pieces, indexed by {@code code * 64 + square}.
+     */
+    public static final long[] PIECES = new long[Position.PIECE_CODES * Position.SQUARES];
+
+    /**
+     * Keys of the side to move, indexed by {@link com.cvut.fel.pjv.Utilities.Colors#ordinal()}.
+     */
+    public static final long[] SIDE = new long[2];
+
+    /**
+     * Keys of the number of steps used in the turn, from 0 to 4.
+     */
+    public static final long[] STEPS = new long[5];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x41524D4141L);
+        for (int i = 0; i < PIECES.length; ++i) {
+            PIECES[i] = random.nextLong();
+        }
+        for (int i = 0; i < SIDE.length; ++i) {
+            SIDE[i] = random.nextLong();
+        }
+
+        // no steps used adds nothing to the key
+        for (int i = 1; i < STEPS.length; ++i) {
+            STEPS[i] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a piece standing on a square.
+     *
+     * @param code the piece code.
+     * @param sq   the square index.
+     * @return the key of the piece.
+     */
+    public static long piece(int code, int sq) {
+        return PIECES[(code << 6) | sq];
+    }
+}
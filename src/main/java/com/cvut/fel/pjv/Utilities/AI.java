@@ -1,18 +1,22 @@
 package com.cvut.fel.pjv.Utilities;
 
 import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Engine.ParallelSearch;
+import com.cvut.fel.pjv.Engine.RandomStrategy;
+import com.cvut.fel.pjv.Engine.SearchEngine;
+import com.cvut.fel.pjv.Engine.SearchResult;
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.Strategy;
+import com.cvut.fel.pjv.Engine.Turns;
 import com.cvut.fel.pjv.Models.Board;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import com.cvut.fel.pjv.Models.Position;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The AI class represents the artificial intelligence for the game.
- * It generates and makes moves based on the current game state.
+ * It asks its strategy for a turn and plays it through the game controller.
  */
 public class AI {
     private Logger logger;
@@ -21,18 +25,28 @@ public class AI {
     private Board board;
     private Colors color;
 
-    private final int boardSize = 8;
-
-    private Random random;
+    private Strategy strategy;
 
     /**
-     * Constructs an AI instance.
+     * Constructs an AI instance that plays random turns.
      *
      * @param game  the GameController instance managing the game.
      * @param board the Board instance representing the game board.
      * @param color the color representing the AI player's pieces.
      */
     public AI(GameController game, Board board, Colors color) {
+        this(game, board, color, new RandomStrategy());
+    }
+
+    /**
+     * Constructs an AI instance.
+     *
+     * @param game     the GameController instance managing the game.
+     * @param board    the Board instance representing the game board.
+     * @param color    the color representing the AI player's pieces.
+     * @param strategy the strategy choosing the turns.
+     */
+    public AI(GameController game, Board board, Colors color, Strategy strategy) {
         if (game.logs) {
             this.logger = LoggerFactory.getLogger(AI.class);
         }
@@ -40,62 +54,105 @@ public class AI {
         this.game = game;
         this.board = board;
         this.color = color;
-        this.random = new Random();
+        this.strategy = strategy;
     }
 
     /**
-     * Makes a turn for the AI by selecting a
-     * random valid move from the list of generated moves.
+     * Returns the strategy choosing the turns.
+     *
+     * @return the strategy.
      */
-    public void makeTurn() {
-        List<int[]> moves = generateMoves();
-        if (game.logs && moves.isEmpty()) {
-            logger.warn("No valid moves available for AI.");
-            return;
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Sets the strategy choosing the turns.
+     *
+     * @param strategy the new strategy.
+     */
+    public void setStrategy(Strategy strategy) {
+        if (this.strategy != strategy) {
+            this.strategy.shutdown();
         }
-        // we get random move from list of possible moves and return it
-        int randomIndex = random.nextInt(0, moves.size());
-        int[] turn = moves.get(randomIndex);
-        game.setPieceTypeAtPosition(turn[0], turn[1], turn[2], turn[3]);
+        this.strategy = strategy;
+    }
 
-        if (game.logs) {
-            logger.debug("AI made a turn: {},{},{} -> {},{}", turn[0], turn[1], turn[2], turn[3]);
+    /**
+     * Makes a turn for the AI with the turn chosen by its strategy.
+     *
+     * @return true if a turn was made, false if there was no legal turn.
+     */
+    public boolean makeTurn() {
+        // the turn is chosen on this thread, so an earlier stop is cleared here
+        strategy.reset();
+        return playTurn(chooseTurn(board.position));
+    }
+
+    /**
+     * Chooses a turn with the strategy without changing the game.
+     * It may run on any thread, as long as the position is not shared. The
+     * thread asking for the turn clears an earlier stop first, see {@link Strategy#reset()}.
+     *
+     * @param position the position at the start of the turn.
+     * @return the packed turn, or {@link Turns#EMPTY} if there is no legal turn.
+     */
+    public long chooseTurn(Position position) {
+        long start = System.nanoTime();
+        long turn = strategy.chooseTurn(position, color.ordinal());
+        long thinking = System.nanoTime() - start;
+
+        // the searches report their nodes, a random turn searches none
+        if (game.metrics != null) {
+            SearchResult result = strategy instanceof SearchEngine engine ? engine.lastResult
+                    : strategy instanceof ParallelSearch search ? search.lastResult : null;
+            game.metrics.aiSearched(result == null ? 0 : result.nodes, thinking);
+        }
+
+        // the hit rate is formatted only if it is going to be written
+        if (game.logs && logger.isInfoEnabled() && strategy instanceof SearchEngine engine) {
+            logger.info("AI search: {}, hash hit rate {}", engine.lastResult,
+                    String.format("%.2f", engine.getTable().getHitRate()));
         }
+        if (game.logs && logger.isInfoEnabled() && strategy instanceof ParallelSearch search) {
+            logger.info("AI search on {} threads: {}, hash hit rate {}", search.getThreads(), search.lastResult,
+                    String.format("%.2f", search.getTable().getHitRate()));
+        }
+        return turn;
     }
 
     /**
-     * Generates a list of all possible valid moves for the AI.
+     * Plays the steps of a turn through the game controller.
      *
-     * @return a list of valid moves, where each move is represented as an array of
-     *         four integers:
-     *         {rowFrom, colFrom, rowTo, colTo}.
+     * @param turn the packed turn.
+     * @return true if a turn was made, false if the turn was empty.
      */
-    private List<int[]> generateMoves() {
-        // we create the list to store all potential moves
-
-        List<int[]> moves = new ArrayList<>();
-
-        // we now need to iterate over each possible combination of rows/cols
-        for (int rowFrom = 0; rowFrom < boardSize; ++rowFrom) {
-            for (int colFrom = 0; colFrom < boardSize; ++colFrom) {
-                if (board.board[rowFrom][colFrom] != null) {
-                    for (int rowTo = 0; rowTo < boardSize; ++rowTo) {
-                        for (int colTo = 0; colTo < boardSize; ++colTo) {
-                            int[] oldPos = new int[] { rowFrom, colFrom };
-                            int[] newPos = new int[] { rowTo, colTo };
-                            if (board.board[rowTo][colTo] == null
-                                    && game.validateTurnNormal(oldPos, newPos, color, true)) {
-                                // if the turn is legal, we add it to potential turns
-
-                                moves.add(new int[] { rowFrom, colFrom, rowTo, colTo });
-                            }
-
-                        }
-                    }
-                }
+    public boolean playTurn(long turn) {
+        if (turn == Turns.EMPTY) {
+            if (game.logs) {
+                logger.warn("No valid moves available for AI.");
             }
+            return false;
         }
 
-        return moves;
+        for (int i = 0; i < Turns.length(turn); ++i) {
+            playStep(Turns.step(turn, i));
+        }
+        return true;
+    }
+
+    /**
+     * Plays a single step through the game controller.
+     *
+     * @param step the packed step.
+     */
+    private void playStep(int step) {
+        int from = Steps.from(step);
+        int to = Steps.to(step);
+        game.setPieceTypeAtPosition(from >> 3, from & 7, to >> 3, to & 7);
+
+        if (game.logs && logger.isDebugEnabled()) {
+            logger.debug("AI made a step: {},{} -> {},{}", from >> 3, from & 7, to >> 3, to & 7);
+        }
     }
 }
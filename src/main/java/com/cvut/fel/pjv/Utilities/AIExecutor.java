@@ -0,0 +1,132 @@
+package com.cvut.fel.pjv.Utilities;
+
+import com.cvut.fel.pjv.Engine.Turns;
+import com.cvut.fel.pjv.Models.Position;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The AIExecutor class computes the turns of the AI on a background thread,
+ * so that the thread asking for the turn (usually the Swing event thread)
+ * stays responsive. The chosen turn is handed back through the given executor,
+ * which runs it on the controller's thread.
+ * <p>
+ * A cancelled computation never delivers its turn, even if it has already
+ * finished. The game clock cancels from its own thread, so the methods are
+ * synchronized.
+ */
+public class AIExecutor {
+    private Logger logger;
+
+    private final AI ai;
+    private final Executor controllerThread;
+    private final ExecutorService worker;
+
+    // increased with every request and cancel, a turn is delivered only if it still matches
+    private long generation;
+    private Future<?> pending;
+
+    /**
+     * Constructs an AIExecutor.
+     *
+     * @param ai               the AI choosing the turns.
+     * @param controllerThread runs the delivery of the turns, e.g. SwingUtilities::invokeLater.
+     * @param logs             indicates whether logging is enabled.
+     */
+    public AIExecutor(AI ai, Executor controllerThread, boolean logs) {
+        if (logs) {
+            this.logger = LoggerFactory.getLogger(AIExecutor.class);
+        }
+
+        this.ai = ai;
+        this.controllerThread = controllerThread;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "arimaa-ai");
+            // the computation must not keep the application alive
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts computing a turn, any computation still running is cancelled.
+     *
+     * @param position the position at the start of the turn, it is copied.
+     * @param onTurn   receives the chosen turn on the controller's thread,
+     *                 {@link Turns#EMPTY} if there is none.
+     */
+    public synchronized void submit(Position position, LongConsumer onTurn) {
+        cancel();
+
+        // the stop of a cancelled computation is cleared here, not by the worker,
+        // so a cancel coming before the worker starts the new one is not lost
+        ai.getStrategy().reset();
+
+        Position copy = new Position();
+        copy.copyFrom(position);
+        long ticket = generation;
+
+        pending = worker.submit(() -> {
+            long turn = Turns.EMPTY;
+            try {
+                turn = ai.chooseTurn(copy);
+            } catch (RuntimeException e) {
+                if (logger != null) {
+                    logger.error("AI failed to choose a turn.", e);
+                }
+            }
+
+            long chosen = turn;
+            controllerThread.execute(() -> {
+                // the game may have ended or been reloaded in the meantime
+                synchronized (this) {
+                    if (ticket != generation) {
+                        return;
+                    }
+                    pending = null;
+                }
+                onTurn.accept(chosen);
+            });
+        });
+    }
+
+    /**
+     * Cancels the running computation, its turn is never delivered.
+     */
+    public synchronized void cancel() {
+        ++generation;
+        if (pending != null) {
+            ai.getStrategy().stop();
+            pending.cancel(true);
+            pending = null;
+
+            if (logger != null) {
+                logger.info("AI computation cancelled.");
+            }
+        }
+    }
+
+    /**
+     * Returns whether a turn is being computed.
+     *
+     * @return true if a computation is running and was not cancelled.
+     */
+    public synchronized boolean isThinking() {
+        return pending != null;
+    }
+
+    /**
+     * Cancels the running computation and stops the background thread.
+     */
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,192 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.Turns;
+import com.cvut.fel.pjv.Models.Position;
+
+/**
+ * The BinaryRecordReader class reads games written by the {@link BinaryRecordWriter}
+ * and passes them to a {@link GameRecordHandler}, the same way the
+ * {@link GameRecordParser} passes text games, so both formats are loaded and
+ * converted by the same handlers.
+ */
+public class BinaryRecordReader {
+    private final byte[] magic = new byte[BinaryRecordWriter.MAGIC.length];
+    private final byte[] setup = new byte[BinaryRecordWriter.SETUP_BYTES];
+
+    /**
+     * Checks if a file starts with the header of a binary record.
+     *
+     * @param path the file to check.
+     * @return true if the file is a binary save or archive.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(BinaryRecordWriter.MAGIC.length);
+            while (start.hasRemaining() && channel.read(start) != -1) {
+                // we read until we have the magic or the file ends
+            }
+            return !start.hasRemaining() && Arrays.equals(start.array(), BinaryRecordWriter.MAGIC);
+        }
+    }
+
+    /**
+     * Reads all games from a file.
+     *
+     * @param path    the binary save or archive.
+     * @param handler the handler receiving the games.
+     * @throws IOException If an I/O error occurs or the file is not a valid binary record.
+     */
+    public void read(Path path, GameRecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            read(Channels.newInputStream(channel), handler);
+        }
+    }
+
+    /**
+     * Reads all games from a stream until its end, the stream is not closed.
+     *
+     * @param input   the stream to read from.
+     * @param handler the handler receiving the games.
+     * @throws IOException If an I/O error occurs or the stream is not a valid binary record.
+     */
+    public void read(InputStream input, GameRecordHandler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, GameRecordParser.DEFAULT_BUFFER_SIZE));
+
+        while (true) {
+            int first = in.read();
+            if (first == -1) {
+                return;
+            }
+            magic[0] = (byte) first;
+            in.readFully(magic, 1, magic.length - 1);
+            if (!Arrays.equals(magic, BinaryRecordWriter.MAGIC)) {
+                throw new IOException("Not a binary game record");
+            }
+            readGame(in, handler);
+        }
+    }
+
+    /**
+     * Reads one record after its magic.
+     */
+    private void readGame(DataInputStream in, GameRecordHandler handler) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version > BinaryRecordWriter.VERSION) {
+            throw new IOException("Unsupported version of the binary game record: " + version);
+        }
+
+        int flags = in.readUnsignedByte();
+        int turnTime = in.readInt();
+        int goldReserve = in.readInt();
+        int silverReserve = in.readInt();
+        byte[] strategy = new byte[in.readUnsignedByte()];
+        in.readFully(strategy);
+        in.readFully(setup);
+
+        handler.startGame();
+
+        // the pieces of each side, in the order the text setup lists them
+        for (int color = Colors.GOLD.ordinal(); color >= 0; --color) {
+            handler.setup(color);
+            for (int row = 7; row >= 0; --row) {
+                for (int col = 0; col < 8; ++col) {
+                    int square = Position.square(row, col);
+                    int code = ((setup[square >>> 1] >>> ((square & 1) * 4)) & 0xF) - 1;
+                    if (code >= Position.PIECE_CODES) {
+                        throw new IOException("Invalid piece in the binary game record");
+                    }
+                    if (code >= 0 && Position.colorOf(code) == color) {
+                        handler.piece(code, square);
+                    }
+                }
+            }
+        }
+
+        int length = in.readInt();
+        int number = 2;
+        int color = Colors.GOLD.ordinal();
+        long turn = Turns.EMPTY;
+        for (int i = 0; i < length; ++i) {
+            int step = in.readUnsignedByte();
+            if (step == BinaryRecordWriter.END_OF_TURN) {
+                handler.turn(number, color, turn);
+                turn = Turns.EMPTY;
+                if (color == Colors.SILVER.ordinal()) {
+                    ++number;
+                }
+                color ^= 1;
+                continue;
+            }
+
+            if (Turns.length(turn) == Turns.MAX_STEPS) {
+                throw new IOException("Too many steps in a turn of the binary game record");
+            }
+            turn = Turns.append(turn, decode(step));
+        }
+        if (turn != Turns.EMPTY) {
+            throw new EOFException("Unfinished turn at the end of the binary game record");
+        }
+
+        if ((flags & BinaryRecordWriter.TURN_TIME) != 0) {
+            handler.turnTime(turnTime);
+        }
+        if ((flags & BinaryRecordWriter.GOLD_RESERVE) != 0) {
+            handler.reserve(Colors.GOLD, goldReserve);
+        }
+        if ((flags & BinaryRecordWriter.SILVER_RESERVE) != 0) {
+            handler.reserve(Colors.SILVER, silverReserve);
+        }
+        if ((flags & BinaryRecordWriter.OPPONENT) != 0) {
+            handler.opponent(new String(strategy, StandardCharsets.US_ASCII));
+        }
+        handler.endGame();
+    }
+
+    /**
+     * Unpacks the byte of a step.
+     *
+     * @param step the byte written by {@link BinaryRecordWriter#encode(int)}.
+     * @return the packed step, see {@link Steps}.
+     * @throws IOException If the step leaves the board.
+     */
+    static int decode(int step) throws IOException {
+        int from = step >>> 2;
+        int row = from >>> 3;
+        int col = from & 7;
+
+        int to;
+        switch (step & 3) {
+            case 0:
+                to = row > 0 ? from - 8 : -1;
+                break;
+            case 1:
+                to = col < 7 ? from + 1 : -1;
+                break;
+            case 2:
+                to = row < 7 ? from + 8 : -1;
+                break;
+            default:
+                to = col > 0 ? from - 1 : -1;
+        }
+
+        if (to < 0) {
+            throw new IOException("Invalid step in the binary game record");
+        }
+        return Steps.step(from, to);
+    }
+}
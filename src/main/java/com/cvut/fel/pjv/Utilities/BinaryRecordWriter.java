@@ -0,0 +1,163 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.Turns;
+
+/**
+ * The BinaryRecordWriter class writes the games it receives in the compact
+ * binary format, one record after another. A record is laid out as follows,
+ * numbers are big-endian:
+ * <ul>
+ * <li>4 bytes: the magic "ARMB",</li>
+ * <li>1 byte: the version of the format,</li>
+ * <li>1 byte: flags telling which of the clock values and the opponent are set,</li>
+ * <li>3 x 4 bytes: the time for the current turn, the gold and the silver reserve,</li>
+ * <li>1 byte and that many ASCII bytes: the strategy of the AI opponent,</li>
+ * <li>32 bytes: the setup, each byte holds two squares, the even one in the low
+ * four bits, as the piece code plus one, zero for an empty square,</li>
+ * <li>4 bytes: the number of bytes of the turns,</li>
+ * <li>the turns: one byte per step, the square it starts from and the direction
+ * (north, east, south, west) in the low two bits, every turn ends with a zero
+ * byte, since a piece on a8 can't step north.</li>
+ * </ul>
+ * The turns are numbered from "2g" on, gold and silver taking turns. Errors
+ * of the output are thrown as {@link UncheckedIOException}.
+ */
+public class BinaryRecordWriter implements GameRecordHandler {
+    /**
+     * The file name extension of binary saves.
+     */
+    public static final String EXTENSION = ".arb";
+
+    /**
+     * The version written into the header.
+     */
+    public static final int VERSION = 1;
+
+    static final byte[] MAGIC = "ARMB".getBytes(StandardCharsets.US_ASCII);
+    static final int SETUP_BYTES = 32;
+    static final int END_OF_TURN = 0;
+    static final int MAX_NAME = 255;
+
+    static final int TURN_TIME = 1;
+    static final int GOLD_RESERVE = 2;
+    static final int SILVER_RESERVE = 4;
+    static final int OPPONENT = 8;
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream turns = new ByteArrayOutputStream();
+    private final byte[] setup = new byte[SETUP_BYTES];
+
+    private int flags;
+    private int turnTime;
+    private int goldReserve;
+    private int silverReserve;
+    private byte[] strategy = new byte[0];
+
+    /**
+     * Constructs a BinaryRecordWriter.
+     *
+     * @param out the stream the records are written to, it is not closed.
+     */
+    public BinaryRecordWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    @Override
+    public void startGame() {
+        // a record can only be written once the clock after the turns is known
+        turns.reset();
+        Arrays.fill(setup, (byte) 0);
+        flags = 0;
+        strategy = new byte[0];
+    }
+
+    @Override
+    public void piece(int code, int square) {
+        int shift = (square & 1) * 4;
+        setup[square >>> 1] = (byte) ((setup[square >>> 1] & ~(0xF << shift)) | ((code + 1) << shift));
+    }
+
+    @Override
+    public void turn(int number, int color, long turn) {
+        for (int i = 0; i < Turns.length(turn); ++i) {
+            turns.write(encode(Turns.step(turn, i)));
+        }
+        turns.write(END_OF_TURN);
+    }
+
+    @Override
+    public void turnTime(int millis) {
+        flags |= TURN_TIME;
+        turnTime = millis;
+    }
+
+    @Override
+    public void reserve(Colors color, int millis) {
+        if (color == Colors.GOLD) {
+            flags |= GOLD_RESERVE;
+            goldReserve = millis;
+        } else {
+            flags |= SILVER_RESERVE;
+            silverReserve = millis;
+        }
+    }
+
+    @Override
+    public void opponent(String strategy) {
+        flags |= OPPONENT;
+        byte[] name = strategy.getBytes(StandardCharsets.US_ASCII);
+        this.strategy = Arrays.copyOf(name, Math.min(name.length, MAX_NAME));
+    }
+
+    @Override
+    public void endGame() {
+        try {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            out.writeInt(turnTime);
+            out.writeInt(goldReserve);
+            out.writeInt(silverReserve);
+            out.writeByte(strategy.length);
+            out.write(strategy);
+            out.write(setup);
+            out.writeInt(turns.size());
+            turns.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Packs a step into a single byte.
+     *
+     * @param step the packed step, see {@link Steps}.
+     * @return the byte of the step.
+     */
+    static int encode(int step) {
+        int from = Steps.from(step);
+        int to = Steps.to(step);
+
+        int direction;
+        if (to == from - 8) {
+            direction = 0;
+        } else if (to == from + 1) {
+            direction = 1;
+        } else if (to == from + 8) {
+            direction = 2;
+        } else {
+            direction = 3;
+        }
+        return from << 2 | direction;
+    }
+}
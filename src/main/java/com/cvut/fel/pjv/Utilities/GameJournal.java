@@ -0,0 +1,382 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The GameJournal class keeps an append-only journal of the game in progress,
+ * so it can be resumed after a crash. The journal is a text save (see
+ * {@link GameRecordParser}) that grows by one turn at a time, it is loaded
+ * like any other save.
+ * <p>
+ * The journal is written by its own thread, so no disk access is done by the
+ * thread finishing the turns, e.g. the Swing event thread. Every turn is
+ * handed to the writer as soon as it is finished, so it survives a crash of
+ * the application. Forcing it to the disk, which it takes to survive a crash
+ * of the system, is batched: it happens after a number of turns, or once
+ * some time has passed since the last force, which the writer checks
+ * regularly by itself. An error of the writer is thrown by the next call.
+ * Only one journal is kept, starting a new one removes the older ones.
+ */
+public class GameJournal {
+    /**
+     * The default number of turns written before they are forced to the disk.
+     */
+    public static final int DEFAULT_SYNC_TURNS = 8;
+
+    /**
+     * The default number of milliseconds a written turn may wait for the force.
+     */
+    public static final long DEFAULT_SYNC_MILLIS = 1000;
+
+    private static final String PREFIX = "game-";
+    private static final String SUFFIX = ".txt";
+
+    /**
+     * A piece of work done by the writer.
+     */
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private final Path directory;
+    private final int syncTurns;
+    private final long syncMillis;
+
+    private ScheduledExecutorService writer;
+    private volatile IOException failure;
+
+    // the file is only touched by the writer
+    private FileChannel channel;
+    private Path file;
+    private volatile int unsynced;
+    private long lastSync;
+
+    /**
+     * Constructs a GameJournal with the default sync policy.
+     *
+     * @param directory the directory the journal is kept in.
+     */
+    public GameJournal(Path directory) {
+        this(directory, DEFAULT_SYNC_TURNS, DEFAULT_SYNC_MILLIS);
+    }
+
+    /**
+     * Constructs a GameJournal.
+     *
+     * @param directory  the directory the journal is kept in.
+     * @param syncTurns  the number of turns written before they are forced to the disk.
+     * @param syncMillis the milliseconds a written turn may wait for the force.
+     */
+    public GameJournal(Path directory, int syncTurns, long syncMillis) {
+        this.directory = directory;
+        this.syncTurns = syncTurns;
+        this.syncMillis = syncMillis;
+    }
+
+    /**
+     * Starts the journal of a game and its writer, the older journals are
+     * removed once the new one is safely on the disk. It waits for the writer.
+     *
+     * @param record the game so far in the text format.
+     * @throws IOException If an I/O error occurs while writing the journal.
+     */
+    public synchronized void begin(CharSequence record) throws IOException {
+        close();
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        String text = record.toString();
+        await(() -> create(text));
+
+        // no written turn waits for the next one to be forced
+        writer.scheduleWithFixedDelay(() -> background(this::syncIfDue), syncMillis, syncMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands lines to the writer, e.g. a finished turn. They are written
+     * without waiting and forced to the disk according to the sync policy.
+     *
+     * @param lines the lines to append, each ending with a new line.
+     * @throws IOException If an earlier write of the journal failed.
+     */
+    public synchronized void append(CharSequence lines) throws IOException {
+        if (writer == null) {
+            return;
+        }
+        rethrow();
+
+        String text = lines.toString();
+        writer.execute(() -> background(() -> {
+            write(text);
+            ++unsynced;
+            syncIfDue();
+        }));
+    }
+
+    /**
+     * Closes the journal, it is kept so the game can be resumed. It waits
+     * until the writer has written and forced all turns.
+     *
+     * @throws IOException If an I/O error occurs while closing the journal.
+     */
+    public synchronized void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            await(() -> {
+                if (channel != null) {
+                    try {
+                        sync();
+                    } finally {
+                        channel.close();
+                        channel = null;
+                    }
+                }
+            });
+            rethrow();
+        } finally {
+            stopWriter();
+        }
+    }
+
+    /**
+     * Closes and removes the journal, e.g. when the game is over.
+     *
+     * @throws IOException If an I/O error occurs while removing the journal.
+     */
+    public synchronized void discard() throws IOException {
+        if (writer == null) {
+            // the journal was closed already, e.g. after an error
+            remove();
+            return;
+        }
+
+        try {
+            await(this::remove);
+        } finally {
+            failure = null;
+            stopWriter();
+        }
+    }
+
+    /**
+     * Checks if a game is being written into the journal.
+     *
+     * @return true if the journal is open.
+     */
+    public synchronized boolean isOpen() {
+        return writer != null;
+    }
+
+    /**
+     * Returns the newest journal left in the directory, e.g. by a crash.
+     *
+     * @return the journal to resume the game from, or null if there is none.
+     * @throws IOException If an I/O error occurs while listing the directory.
+     */
+    public synchronized Path latest() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+
+        Path latest = null;
+        long newest = -1;
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path journal : journals) {
+                String name = journal.getFileName().toString();
+                try {
+                    long created = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    if (created > newest) {
+                        newest = created;
+                        latest = journal;
+                    }
+                } catch (NumberFormatException e) {
+                    // not a journal we wrote
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Waits until the writer has written everything handed to it so far.
+     *
+     * @throws IOException If an I/O error occurs while writing the journal.
+     */
+    synchronized void drain() throws IOException {
+        if (writer != null) {
+            await(() -> {
+            });
+            rethrow();
+        }
+    }
+
+    /**
+     * Returns the number of turns written but not forced to the disk yet,
+     * once the writer has written the turns handed to it.
+     *
+     * @return the number of unsynced turns.
+     * @throws IOException If an I/O error occurs while writing the journal.
+     */
+    synchronized int unsynced() throws IOException {
+        drain();
+        return unsynced;
+    }
+
+    /**
+     * Creates the journal file with the game so far, forces it and removes the older journals.
+     */
+    private void create(String record) throws IOException {
+        Files.createDirectories(directory);
+
+        long name = System.currentTimeMillis();
+        Path created = directory.resolve(PREFIX + name + SUFFIX);
+        while (Files.exists(created)) {
+            created = directory.resolve(PREFIX + (++name) + SUFFIX);
+        }
+
+        channel = FileChannel.open(created, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        file = created;
+        write(record);
+        sync();
+
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path journal : journals) {
+                if (!journal.equals(file)) {
+                    Files.delete(journal);
+                }
+            }
+        }
+        syncDirectory();
+    }
+
+    /**
+     * Forces the written turns to the disk if there are enough of them, or if
+     * the oldest one waits too long.
+     */
+    private void syncIfDue() throws IOException {
+        if (unsynced > 0 && (unsynced >= syncTurns || System.nanoTime() - lastSync >= syncMillis * 1_000_000)) {
+            sync();
+        }
+    }
+
+    /**
+     * Forces all written turns to the disk.
+     */
+    private void sync() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+        }
+        unsynced = 0;
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Runs a task on the writer without waiting, its error is kept for the
+     * next call. Nothing is written after an error.
+     */
+    private void background(Task task) {
+        if (failure != null || channel == null) {
+            return;
+        }
+        try {
+            task.run();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Runs a task on the writer after everything handed to it before and waits for it.
+     */
+    private void await(Task task) throws IOException {
+        try {
+            writer.submit(() -> {
+                task.run();
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the journal");
+        }
+    }
+
+    private void rethrow() throws IOException {
+        IOException e = failure;
+        if (e != null) {
+            failure = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Closes and deletes the journal file.
+     */
+    private void remove() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (file != null) {
+            Files.deleteIfExists(file);
+            file = null;
+        }
+        unsynced = 0;
+    }
+
+    /**
+     * Stops the writer, the regular check of the sync policy is cancelled.
+     */
+    private void stopWriter() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(syncMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    private void write(CharSequence text) throws IOException {
+        ByteBuffer bytes = StandardCharsets.US_ASCII.encode(text.toString());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Forces the directory entries, so a new journal is not lost with the directory.
+     * Not every system can open a directory, there it is left to the system.
+     */
+    private void syncDirectory() {
+        try (FileChannel entries = FileChannel.open(directory, StandardOpenOption.READ)) {
+            entries.force(true);
+        } catch (IOException e) {
+            // the directory can't be forced on this system
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ConstructorParameters;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.cvut.fel.pjv.Engine.Rules;
+
+/**
+ * The GameMetrics class counts what the game does at runtime: the validated
+ * and rejected steps, the search of the AI, the turns, the clock, saving,
+ * loading and painting the board. It is exposed as a JMX MXBean, see
+ * {@link #register()}, and can be dumped periodically into a file, see
+ * {@link #startDumps(Path, long)}.
+ * <p>
+ * Every counter is a {@link LongAdder} or a {@link LongAccumulator}, so the
+ * threads recording them never take a lock or contend on a single variable,
+ * and counting does not slow down the code it measures.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+    /**
+     * The name the metrics are registered under.
+     */
+    public static final String OBJECT_NAME = "com.cvut.fel.pjv:type=GameMetrics";
+
+    /**
+     * The default number of milliseconds between two dumps.
+     */
+    public static final long DEFAULT_DUMP_MILLIS = 60_000;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * The durations of one kind of operation, recorded without locking.
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        /**
+         * Records one operation.
+         *
+         * @param nanos the duration of the operation in nanoseconds.
+         */
+        public void record(long nanos) {
+            count.increment();
+            this.nanos.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        /**
+         * Records one operation that started at a given time.
+         *
+         * @param start the {@link System#nanoTime()} the operation started at.
+         */
+        public void since(long start) {
+            record(System.nanoTime() - start);
+        }
+
+        /**
+         * Returns the durations recorded so far.
+         *
+         * @return the snapshot of the durations.
+         */
+        public Timing snapshot() {
+            long n = count.sum();
+            return new Timing(n, n == 0 ? 0 : nanos.sum() / NANOS_PER_MILLI / n, max.get() / NANOS_PER_MILLI);
+        }
+    }
+
+    /**
+     * A snapshot of a {@link Timer}, JMX clients see it as a composite value.
+     */
+    public static final class Timing {
+        private final long count;
+        private final double meanMillis;
+        private final double maxMillis;
+
+        /**
+         * Constructs a Timing.
+         *
+         * @param count      the number of operations.
+         * @param meanMillis the mean duration in milliseconds.
+         * @param maxMillis  the longest duration in milliseconds.
+         */
+        @ConstructorParameters({ "count", "meanMillis", "maxMillis" })
+        public Timing(long count, double meanMillis, double maxMillis) {
+            this.count = count;
+            this.meanMillis = meanMillis;
+            this.maxMillis = maxMillis;
+        }
+
+        /**
+         * Returns the number of operations.
+         *
+         * @return the count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the mean duration.
+         *
+         * @return the mean in milliseconds.
+         */
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        /**
+         * Returns the longest duration.
+         *
+         * @return the maximum in milliseconds.
+         */
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%.2f/%.2fms", count, meanMillis, maxMillis);
+        }
+    }
+
+    // the durations, they are recorded directly by the measured code
+    public final Timer aiThink = new Timer();
+    public final Timer turnLatency = new Timer();
+    public final Timer save = new Timer();
+    public final Timer load = new Timer();
+    public final Timer repaint = new Timer();
+
+    private final long started = System.nanoTime();
+    private final LongAdder stepsValidated = new LongAdder();
+    private final LongAdder[] rejections = new LongAdder[Rules.REJECTIONS.length];
+    private final LongAdder aiNodes = new LongAdder();
+    // the drift of the clock is summed in nanoseconds, so no rounding accumulates
+    private final LongAdder clockDrift = new LongAdder();
+    private final LongAccumulator clockDriftMax = new LongAccumulator(Long::max, 0);
+
+    private ScheduledExecutorService dumps;
+    private Path dumpFile;
+    private long dumpedSteps;
+    private long dumpedAt = started;
+    private ObjectName registered;
+
+    /**
+     * Constructs GameMetrics with all counters at zero.
+     */
+    public GameMetrics() {
+        for (int i = 0; i < rejections.length; ++i) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Counts a step checked by the validator.
+     */
+    public void stepValidated() {
+        stepsValidated.increment();
+    }
+
+    /**
+     * Counts a step rejected by the validator.
+     *
+     * @param reason the reason of the rejection, see {@link Rules#rejection}.
+     */
+    public void stepRejected(int reason) {
+        rejections[reason].increment();
+    }
+
+    /**
+     * Records a search of the AI.
+     *
+     * @param nodes the number of positions searched.
+     * @param nanos the time the search took in nanoseconds.
+     */
+    public void aiSearched(long nodes, long nanos) {
+        aiNodes.add(nodes);
+        aiThink.record(nanos);
+    }
+
+    /**
+     * Records a tick of the game clock, comparing the game time it counted to the real time.
+     *
+     * @param countedMillis the milliseconds the clock counted.
+     * @param realNanos     the nanoseconds that really passed since the previous tick.
+     */
+    public void clockTicked(long countedMillis, long realNanos) {
+        long drift = realNanos - countedMillis * 1_000_000;
+        clockDrift.add(drift);
+        clockDriftMax.accumulate(Math.abs(drift));
+    }
+
+    @Override
+    public double getUptimeSeconds() {
+        return (System.nanoTime() - started) / NANOS_PER_SECOND;
+    }
+
+    @Override
+    public long getStepsValidated() {
+        return stepsValidated.sum();
+    }
+
+    @Override
+    public double getStepsValidatedPerSecond() {
+        return getStepsValidated() / Math.max(getUptimeSeconds(), 1e-9);
+    }
+
+    @Override
+    public Map<String, Long> getRejections() {
+        Map<String, Long> byReason = new LinkedHashMap<>();
+        for (int i = 0; i < rejections.length; ++i) {
+            byReason.put(Rules.REJECTIONS[i], rejections[i].sum());
+        }
+        return byReason;
+    }
+
+    @Override
+    public long getAiNodes() {
+        return aiNodes.sum();
+    }
+
+    @Override
+    public double getAiNodesPerSecond() {
+        double seconds = aiThink.nanos.sum() / NANOS_PER_SECOND;
+        return seconds == 0 ? 0 : getAiNodes() / seconds;
+    }
+
+    @Override
+    public Timing getAiThink() {
+        return aiThink.snapshot();
+    }
+
+    @Override
+    public Timing getTurnLatency() {
+        return turnLatency.snapshot();
+    }
+
+    @Override
+    public long getClockDriftMillis() {
+        return clockDrift.sum() / 1_000_000;
+    }
+
+    @Override
+    public long getClockDriftMaxMillis() {
+        return clockDriftMax.get() / 1_000_000;
+    }
+
+    @Override
+    public Timing getSave() {
+        return save.snapshot();
+    }
+
+    @Override
+    public Timing getLoad() {
+        return load.snapshot();
+    }
+
+    @Override
+    public Timing getRepaint() {
+        return repaint.snapshot();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, replacing metrics
+     * registered before, e.g. by an earlier game controller.
+     *
+     * @throws IllegalStateException If the metrics can't be registered.
+     */
+    public synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registered = name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics", e);
+        }
+    }
+
+    /**
+     * Starts appending the metrics to a file in a directory periodically, the
+     * file is named after the current time like the log files.
+     *
+     * @param directory    the directory of the file, e.g. the logs.
+     * @param periodMillis the milliseconds between two dumps.
+     * @throws IOException If an I/O error occurs while creating the directory.
+     */
+    public synchronized void startDumps(Path directory, long periodMillis) throws IOException {
+        if (dumps != null) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        dumpFile = directory.resolve(
+                "metrics_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")) + ".txt");
+        dumps = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumps.scheduleAtFixedRate(this::dump, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the dumps, writing the last one, and unregisters the metrics.
+     */
+    public synchronized void shutdown() {
+        if (dumps != null) {
+            dumps.shutdownNow();
+            dumps = null;
+            dump();
+        }
+
+        if (registered != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+            } catch (JMException e) {
+                // the metrics are gone already
+            }
+            registered = null;
+        }
+    }
+
+    /**
+     * Appends one line with all metrics to the dump file, the rate of the steps
+     * is counted since the previous dump.
+     */
+    synchronized void dump() {
+        if (dumpFile == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long steps = getStepsValidated();
+        double seconds = Math.max((now - dumpedAt) / NANOS_PER_SECOND, 1e-9);
+        String line = LocalDateTime.now() + " " + summary(String.format("%.1f", (steps - dumpedSteps) / seconds))
+                + System.lineSeparator();
+        dumpedSteps = steps;
+        dumpedAt = now;
+
+        try {
+            Files.writeString(dumpFile, line, StandardCharsets.US_ASCII, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // a lost dump is not worth stopping the game, the next one is tried again
+        }
+    }
+
+    @Override
+    public String toString() {
+        return summary(String.format("%.1f", getStepsValidatedPerSecond()));
+    }
+
+    private String summary(String stepsPerSecond) {
+        return "steps=" + getStepsValidated() + " steps/s=" + stepsPerSecond + " rejections=" + getRejections()
+                + " aiNodes=" + getAiNodes() + " aiNodes/s=" + String.format("%.0f", getAiNodesPerSecond())
+                + " aiThink=" + getAiThink() + " turn=" + getTurnLatency() + " clockDrift=" + getClockDriftMillis()
+                + "ms clockDriftMax=" + getClockDriftMaxMillis() + "ms save=" + getSave() + " load=" + getLoad()
+                + " repaint=" + getRepaint();
+    }
+}
@@ -0,0 +1,102 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link GameMetrics}, it is what JMX clients,
+ * e.g. JConsole, see under {@link GameMetrics#OBJECT_NAME}. All times are in
+ * milliseconds.
+ */
+public interface GameMetricsMXBean {
+    /**
+     * Returns the seconds since the metrics were created.
+     *
+     * @return the uptime in seconds.
+     */
+    double getUptimeSeconds();
+
+    /**
+     * Returns the number of steps checked by the validator.
+     *
+     * @return the number of validated steps.
+     */
+    long getStepsValidated();
+
+    /**
+     * Returns the average number of steps validated per second of the uptime.
+     *
+     * @return the steps per second.
+     */
+    double getStepsValidatedPerSecond();
+
+    /**
+     * Returns the number of rejected steps by the reason, see {@link com.cvut.fel.pjv.Engine.Rules#REJECTIONS}.
+     *
+     * @return the rejections by the name of the reason.
+     */
+    Map<String, Long> getRejections();
+
+    /**
+     * Returns the number of positions searched by the AI.
+     *
+     * @return the number of nodes.
+     */
+    long getAiNodes();
+
+    /**
+     * Returns the positions the AI searched per second of its thinking.
+     *
+     * @return the nodes per second.
+     */
+    double getAiNodesPerSecond();
+
+    /**
+     * Returns the time the AI spent choosing its turns.
+     *
+     * @return the think time.
+     */
+    GameMetrics.Timing getAiThink();
+
+    /**
+     * Returns the time it took to finish a turn, from the request to the next player.
+     *
+     * @return the turn latency.
+     */
+    GameMetrics.Timing getTurnLatency();
+
+    /**
+     * Returns the sum of the differences between the real time and the game
+     * time counted by the clock, a positive drift means the game time lags behind.
+     *
+     * @return the drift in milliseconds.
+     */
+    long getClockDriftMillis();
+
+    /**
+     * Returns the largest difference between the real time and the game time of one tick.
+     *
+     * @return the largest drift in milliseconds.
+     */
+    long getClockDriftMaxMillis();
+
+    /**
+     * Returns the time it took to save games.
+     *
+     * @return the save durations.
+     */
+    GameMetrics.Timing getSave();
+
+    /**
+     * Returns the time it took to load games.
+     *
+     * @return the load durations.
+     */
+    GameMetrics.Timing getLoad();
+
+    /**
+     * Returns the time it took to paint the board.
+     *
+     * @return the repaint durations.
+     */
+    GameMetrics.Timing getRepaint();
+}
@@ -0,0 +1,67 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The GameRecordConverter class converts saves and archives between the text
+ * format and the binary format (see {@link BinaryRecordWriter}). The direction
+ * is given by the source, binary files are written as text and text files as binary.
+ * <p>
+ * Usage: {@code GameRecordConverter source target}
+ */
+public final class GameRecordConverter {
+    private GameRecordConverter() {
+    }
+
+    /**
+     * Converts a save or an archive into the other format.
+     *
+     * @param source the file to convert.
+     * @param target the file to write, it is replaced if it exists.
+     * @throws IOException If an I/O error occurs or the source can't be read.
+     */
+    public static void convert(Path source, Path target) throws IOException {
+        boolean binary = BinaryRecordReader.isBinary(source);
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            if (binary) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII));
+                new BinaryRecordReader().read(source, new TextRecordWriter(writer));
+                writer.flush();
+            } else {
+                new GameRecordParser().parse(source, new BinaryRecordWriter(out));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Converts the file given on the command line.
+     *
+     * @param args the source and the target file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: GameRecordConverter source target");
+            return;
+        }
+
+        try {
+            convert(Path.of(args[0]), Path.of(args[1]));
+            System.out.println(args[0] + " (" + Files.size(Path.of(args[0])) + " bytes) -> "
+                    + args[1] + " (" + Files.size(Path.of(args[1])) + " bytes)");
+        } catch (IOException e) {
+            System.err.println("Could not convert " + args[0] + ": " + e.getMessage());
+        }
+    }
+}
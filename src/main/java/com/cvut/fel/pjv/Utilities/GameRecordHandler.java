@@ -0,0 +1,83 @@
+package com.cvut.fel.pjv.Utilities;
+
+/**
+ * The GameRecordHandler interface receives the games read by the
+ * {@link GameRecordParser}. Everything is passed as primitives, the pieces as
+ * codes (see {@link com.cvut.fel.pjv.Models.Position#code(Colors, Figures)}),
+ * the squares as indexes and the turns packed (see {@link com.cvut.fel.pjv.Engine.Turns}),
+ * so reading a game does not create any objects. All methods do nothing by default.
+ */
+public interface GameRecordHandler {
+    /**
+     * Called before the first line of a game.
+     */
+    default void startGame() {
+    }
+
+    /**
+     * Called at the start of a setup line, before its pieces.
+     *
+     * @param color the color ordinal of the side placing the pieces.
+     */
+    default void setup(int color) {
+    }
+
+    /**
+     * Called for every piece of the initial setup.
+     *
+     * @param code   the piece code.
+     * @param square the square index of the piece.
+     */
+    default void piece(int code, int square) {
+    }
+
+    /**
+     * Called for every turn of the game.
+     *
+     * @param number the number of the turn, the setup is turn 1, 0 if unknown.
+     * @param color  the color ordinal of the side that played the turn, -1 if
+     *               the line has no turn number.
+     * @param turn   the packed steps of the turn, captures are not steps.
+     */
+    default void turn(int number, int color, long turn) {
+    }
+
+    /**
+     * Called for the time left for the current turn, the "CURRENT" line.
+     *
+     * @param millis the time in milliseconds.
+     */
+    default void turnTime(int millis) {
+    }
+
+    /**
+     * Called for the reserve time of a player, the "GOLD" and "SILVER" lines.
+     *
+     * @param color  the player the reserve belongs to.
+     * @param millis the time in milliseconds.
+     */
+    default void reserve(Colors color, int millis) {
+    }
+
+    /**
+     * Called if the game is played against the computer, the "AI" line.
+     *
+     * @param strategy the name of the strategy, empty for the random AI.
+     */
+    default void opponent(String strategy) {
+    }
+
+    /**
+     * Called after the last line of a game.
+     */
+    default void endGame() {
+    }
+
+    /**
+     * Called for a line that could not be read, it is skipped.
+     *
+     * @param line the number of the line in the input, starting at 1.
+     */
+    default void error(long line) {
+    }
+}
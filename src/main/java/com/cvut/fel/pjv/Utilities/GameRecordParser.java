@@ -0,0 +1,445 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.Turns;
+import com.cvut.fel.pjv.Models.Position;
+
+/**
+ * The GameRecordParser class reads saved games, or archives of many games,
+ * and passes them to a {@link GameRecordHandler}. Each line is one of:
+ * <ul>
+ * <li>the setup of one side, e.g. "1g Ra1 Rb1 ..." or "1s ra8 rb8 ...",</li>
+ * <li>a turn, e.g. "2g Ed2n Ed3n Rc3x", captures and repeated turn numbers are skipped,</li>
+ * <li>the clock, "CURRENT 9000", "GOLD 96000" or "SILVER 96000",</li>
+ * <li>the opponent, "AI" optionally followed by the name of the strategy.</li>
+ * </ul>
+ * The games of an archive are separated by blank lines, a gold setup after
+ * the setup of a game starts a new game as well. Both "g"/"s" and "w"/"b"
+ * turn numbers are accepted.
+ * <p>
+ * The input is read block by block into one buffer and decoded byte by byte,
+ * the steps go straight into packed turns (see {@link Turns}), so archives of
+ * any size are read in constant memory and without creating objects for the
+ * tokens. A parser can be reused, but not shared between threads.
+ */
+public class GameRecordParser {
+    /**
+     * The default size of the read buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final int MAX_TOKEN = 16;
+    private static final String PIECE_LETTERS = "RCDHMErcdhme";
+
+    private static final byte[] CURRENT = "CURRENT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GOLD = "GOLD".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SILVER = "SILVER".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] AI = "AI".getBytes(StandardCharsets.US_ASCII);
+
+    // the kinds of lines
+    private static final int BLANK = 0;
+    private static final int SETUP = 1;
+    private static final int TURN = 2;
+    private static final int TURN_TIME = 3;
+    private static final int GOLD_RESERVE = 4;
+    private static final int SILVER_RESERVE = 5;
+    private static final int OPPONENT = 6;
+    private static final int INVALID = 7;
+
+    private final ByteBuffer buffer;
+    private final byte[] token = new byte[MAX_TOKEN];
+    private final StringBuilder strategy = new StringBuilder();
+
+    private GameRecordHandler handler;
+    private int length;
+    private long line;
+    private int kind;
+    private boolean inGame;
+    private boolean setupRead;
+
+    private int number;
+    private int color;
+    private long turn;
+    private long value;
+
+    /**
+     * Constructs a GameRecordParser with the default buffer size.
+     */
+    public GameRecordParser() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a GameRecordParser.
+     *
+     * @param bufferSize the number of bytes read from the input at once.
+     */
+    public GameRecordParser(int bufferSize) {
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Reads all games from a file.
+     *
+     * @param path    the file with the saved game or the archive.
+     * @param handler the handler receiving the games.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public void parse(Path path, GameRecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            parse(channel, handler);
+        }
+    }
+
+    /**
+     * Reads all games from a channel until its end, the channel is not closed.
+     *
+     * @param channel the channel to read from.
+     * @param handler the handler receiving the games.
+     * @throws IOException If an I/O error occurs while reading the channel.
+     */
+    public void parse(ReadableByteChannel channel, GameRecordHandler handler) throws IOException {
+        this.handler = handler;
+        length = 0;
+        line = 1;
+        kind = BLANK;
+        inGame = false;
+        setupRead = false;
+        buffer.clear();
+
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                switch (b) {
+                    case '\n':
+                        endToken();
+                        endLine();
+                        break;
+                    case ' ':
+                    case '\t':
+                    case '\r':
+                        endToken();
+                        break;
+                    default:
+                        // tokens may continue in the next block, too long ones are only counted
+                        if (length < MAX_TOKEN) {
+                            token[length] = b;
+                        }
+                        ++length;
+                }
+            }
+            buffer.clear();
+        }
+
+        // the last line does not have to end with a new line
+        endToken();
+        endLine();
+        endGame();
+        this.handler = null;
+    }
+
+    /**
+     * Handles the token collected so far, depending on the kind of the line.
+     */
+    private void endToken() {
+        if (length == 0) {
+            return;
+        }
+
+        if (length > MAX_TOKEN) {
+            kind = INVALID;
+        }
+
+        switch (kind) {
+            case BLANK:
+                firstToken();
+                break;
+            case SETUP:
+                setupToken();
+                break;
+            case TURN:
+                turnToken();
+                break;
+            case TURN_TIME:
+            case GOLD_RESERVE:
+            case SILVER_RESERVE:
+                numberToken();
+                break;
+            case OPPONENT:
+                strategyToken();
+                break;
+            default:
+                // the rest of an invalid line is skipped
+                break;
+        }
+        length = 0;
+    }
+
+    /**
+     * Passes a finished line to the handler.
+     */
+    private void endLine() {
+        switch (kind) {
+            case BLANK:
+                endGame();
+                break;
+            case TURN:
+                handler.turn(number, color, turn);
+                break;
+            case TURN_TIME:
+                if (value < 0) {
+                    handler.error(line);
+                } else {
+                    handler.turnTime((int) value);
+                }
+                break;
+            case GOLD_RESERVE:
+            case SILVER_RESERVE:
+                if (value < 0) {
+                    handler.error(line);
+                } else {
+                    handler.reserve(kind == GOLD_RESERVE ? Colors.GOLD : Colors.SILVER, (int) value);
+                }
+                break;
+            case OPPONENT:
+                handler.opponent(strategy.toString());
+                break;
+            case INVALID:
+                handler.error(line);
+                break;
+            default:
+                // the pieces of a setup were passed one by one
+                break;
+        }
+        kind = BLANK;
+        ++line;
+    }
+
+    private void startGame() {
+        if (!inGame) {
+            inGame = true;
+            setupRead = false;
+            handler.startGame();
+        }
+    }
+
+    private void endGame() {
+        if (inGame) {
+            inGame = false;
+            handler.endGame();
+        }
+    }
+
+    /**
+     * Decides the kind of the line by its first token.
+     */
+    private void firstToken() {
+        if (isTurnNumber()) {
+            number = 0;
+            for (int i = 0; i < length - 1; ++i) {
+                number = number * 10 + token[i] - '0';
+            }
+            color = colorOf(token[length - 1]);
+
+            // a new gold setup after a setup means the previous game ended without a blank line
+            if (number == 1 && color == Colors.GOLD.ordinal() && setupRead) {
+                endGame();
+            }
+            startGame();
+
+            turn = Turns.EMPTY;
+            kind = TURN;
+            if (number == 1) {
+                kind = SETUP;
+                setupRead = true;
+                handler.setup(color);
+            }
+            return;
+        }
+
+        startGame();
+        value = -1;
+        if (isToken(CURRENT)) {
+            kind = TURN_TIME;
+        } else if (isToken(GOLD)) {
+            kind = GOLD_RESERVE;
+        } else if (isToken(SILVER)) {
+            kind = SILVER_RESERVE;
+        } else if (isToken(AI)) {
+            kind = OPPONENT;
+            strategy.setLength(0);
+        } else {
+            // a turn without its number, e.g. typed by hand
+            number = 0;
+            color = -1;
+            turn = Turns.EMPTY;
+            kind = TURN;
+            turnToken();
+        }
+    }
+
+    /**
+     * Reads a piece of the setup, e.g. "Ra1".
+     */
+    private void setupToken() {
+        int code = codeOf(token[0]);
+        int square = squareOf(token[1], token[2]);
+        if (length != 3 || code < 0 || square < 0) {
+            kind = INVALID;
+            return;
+        }
+        handler.piece(code, square);
+    }
+
+    /**
+     * Reads a step of a turn, e.g. "Ed2n", captures and turn numbers are skipped.
+     */
+    private void turnToken() {
+        if (isTurnNumber()) {
+            return;
+        }
+
+        int from = length == 4 && codeOf(token[0]) >= 0 ? squareOf(token[1], token[2]) : -1;
+        if (from < 0) {
+            kind = INVALID;
+            return;
+        }
+
+        int row = from >>> 3;
+        int col = from & 7;
+        int to;
+        switch (token[3]) {
+            case 'n':
+                to = row > 0 ? from - 8 : -1;
+                break;
+            case 's':
+                to = row < 7 ? from + 8 : -1;
+                break;
+            case 'e':
+                to = col < 7 ? from + 1 : -1;
+                break;
+            case 'w':
+                to = col > 0 ? from - 1 : -1;
+                break;
+            case 'x':
+                // the capture follows from the steps
+                return;
+            default:
+                to = -1;
+        }
+
+        if (to < 0 || Turns.length(turn) == Turns.MAX_STEPS) {
+            kind = INVALID;
+            return;
+        }
+        turn = Turns.append(turn, Steps.step(from, to));
+    }
+
+    /**
+     * Reads the milliseconds of a clock line.
+     */
+    private void numberToken() {
+        if (value >= 0 || length > 10) {
+            kind = INVALID;
+            return;
+        }
+
+        long parsed = 0;
+        for (int i = 0; i < length; ++i) {
+            if (token[i] < '0' || token[i] > '9') {
+                kind = INVALID;
+                return;
+            }
+            parsed = parsed * 10 + token[i] - '0';
+        }
+
+        if (parsed > Integer.MAX_VALUE) {
+            kind = INVALID;
+            return;
+        }
+        value = parsed;
+    }
+
+    /**
+     * Reads the name of the strategy of the AI line, it is the only text kept as a String.
+     */
+    private void strategyToken() {
+        if (strategy.length() > 0) {
+            strategy.append(' ');
+        }
+        for (int i = 0; i < length; ++i) {
+            strategy.append((char) token[i]);
+        }
+    }
+
+    /**
+     * Checks if the token is a turn number, e.g. "12g".
+     */
+    private boolean isTurnNumber() {
+        if (length < 2 || length > 10 || colorOf(token[length - 1]) < 0) {
+            return false;
+        }
+        for (int i = 0; i < length - 1; ++i) {
+            if (token[i] < '0' || token[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isToken(byte[] keyword) {
+        if (length != keyword.length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (token[i] != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int colorOf(byte letter) {
+        switch (letter) {
+            case 'g':
+            case 'w':
+                return Colors.GOLD.ordinal();
+            case 's':
+            case 'b':
+                return Colors.SILVER.ordinal();
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the piece code of a letter, upper case letters are gold pieces.
+     */
+    private static int codeOf(byte letter) {
+        int index = PIECE_LETTERS.indexOf(letter);
+        if (index < 0) {
+            return -1;
+        }
+        Colors color = index < Position.TYPES ? Colors.GOLD : Colors.SILVER;
+        return color.ordinal() * Position.TYPES + index % Position.TYPES;
+    }
+
+    /**
+     * Returns the square index of a file and a rank, e.g. 'a' and '1'.
+     */
+    private static int squareOf(byte file, byte rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return ('8' - rank) * 8 + (file - 'a');
+    }
+}
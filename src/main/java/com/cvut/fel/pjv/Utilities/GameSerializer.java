@@ -1,19 +1,28 @@
 package com.cvut.fel.pjv.Utilities;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Controllers.GameListener;
+import com.cvut.fel.pjv.Engine.RandomStrategy;
+import com.cvut.fel.pjv.Engine.Strategy;
 import com.cvut.fel.pjv.Models.Board;
 import com.cvut.fel.pjv.Models.Piece;
-import com.cvut.fel.pjv.Views.BoardView;
-import com.cvut.fel.pjv.Views.ControlsView;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,30 +36,42 @@ public class GameSerializer {
 
     private GameController game;
     public Board board;
-    private ControlsView controlsView;
-    private BoardView boardView;
+    private List<GameListener> listeners;
 
     private final int boardSize = 8;
 
     public List<String> history; // list to store all the turns in the Arimaa notation
 
+    public Path savesDirectory = Path.of("arimaa", "saves");
+    public GameJournal journal; // the journal of the game in progress, null if it is not kept
+
+    /**
+     * Constructs a GameSerializer object with the specified game components.
+     * 
+     * @param game      The GameController instance controlling the game.
+     * @param board     The Board instance representing the game board.
+     * @param listeners The listeners following the loaded game, e.g. the views.
+     */
+    public GameSerializer(GameController game, Board board, GameListener... listeners) {
+        this(game, board, new ArrayList<>(List.of(listeners)));
+    }
+
     /**
      * Constructs a GameSerializer object with the specified game components.
      * 
-     * @param game         The GameController instance controlling the game.
-     * @param board        The Board instance representing the game board.
-     * @param controlsView The ControlsView instance for displaying game controls.
-     * @param boardView    The BoardView instance for displaying the game board.
+     * @param game      The GameController instance controlling the game.
+     * @param board     The Board instance representing the game board.
+     * @param listeners The list of listeners following the loaded game, it is
+     *                  shared with the caller, so later changes are seen here.
      */
-    public GameSerializer(GameController game, Board board, ControlsView controlsView, BoardView boardView) {
+    public GameSerializer(GameController game, Board board, List<GameListener> listeners) {
         if (game.logs) {
             this.logger = LoggerFactory.getLogger(GameSerializer.class);
         }
 
         this.game = game;
         this.board = board;
-        this.controlsView = controlsView;
-        this.boardView = boardView;
+        this.listeners = listeners;
         this.history = new ArrayList<>();
     }
 
@@ -60,165 +81,274 @@ public class GameSerializer {
      * @param save The file containing the saved game state.
      */
     public void loadGame(File save) {
-        try {
-            if (game.logs) {
-                logger.debug("Loading game from file: {}", save.getName());
+        load(save.getName(), replay -> {
+            // binary saves are told apart by their header
+            if (BinaryRecordReader.isBinary(save.toPath())) {
+                new BinaryRecordReader().read(save.toPath(), replay);
+            } else {
+                new GameRecordParser().parse(save.toPath(), replay);
             }
+        });
+    }
 
-            // we are loading the game
-            controlsView.changeControls();
-
-            // we do not need to set figures in this case
-            boardView.areFiguresSet = true;
-            history.clear();
-
-            // initialize the boardView
-            boardView.initBoard();
-
-            Scanner scanner = new Scanner(save);
-
-            // first we read initial positions of figures and add them to history
-            String goldPosition = scanner.nextLine();
-            controlsView.addToHistory(goldPosition + "\n");
-            appendToHistory(goldPosition);
-
-            String silverPosition = scanner.nextLine();
-            controlsView.addToHistory(silverPosition + "\n");
-            appendToHistory(silverPosition);
-
-            controlsView.addToHistory("2g ");
+    /**
+     * Takes the game back to the start of a turn, the later turns are dropped.
+     * The clock and the reserves are kept as they are now.
+     * 
+     * @param turns The number of turns in the history to keep, including the
+     *              two setup turns.
+     */
+    public void rewind(int turns) {
+        if (turns < 2 || turns > history.size()) {
+            return;
+        }
 
-            // we split the position into tokens and place the figures accordingly
-            String[] tokens = goldPosition.toString().split("\\s+");
-            for (String token : tokens) {
-                if (token.equals("1g"))
-                    continue;
-                int col = token.charAt(1) - 'a';
-                int row = boardSize - (token.charAt(2) - '0');
-                board.board[row][col] = new Piece(token.substring(0, 1));
-            }
+        byte[] text = record(game.timeForTurn, turns).toString().getBytes(StandardCharsets.US_ASCII);
+        load("turn " + turns, replay -> new GameRecordParser()
+                .parse(Channels.newChannel(new ByteArrayInputStream(text)), replay));
+    }
 
-            // same for silver position
-            tokens = silverPosition.toString().split("\\s+");
-            for (String token : tokens) {
-                if (token.equals("1s"))
-                    continue;
-                int col = token.charAt(1) - 'a';
-                int row = boardSize - (token.charAt(2) - '0');
-                board.board[row][col] = new Piece(token.substring(0, 1));
+    /**
+     * Replaces the current game with a game read from a record.
+     * 
+     * @param name   The name of the record for the log.
+     * @param record Reads the record into the replay.
+     */
+    private void load(String name, Record record) {
+        long start = System.nanoTime();
+        try {
+            if (game.logs) {
+                logger.debug("Loading game from: {}", name);
             }
 
-            // now we start replaying the game until we reach the last position
-            while (scanner.hasNextLine()) {
-                String nextTurn = scanner.nextLine();
+            // the AI must not play into the loaded game
+            game.cancelAITurn();
 
-                if (game.logs) {
-                    logger.debug("Loading turn: {}", nextTurn);
-                }
+            // the journal of the current game is kept until the loaded one has its own
+            closeJournal();
 
-                // if we encounter the AI flag, we turn on vsAI mode
-                if (nextTurn.equals("AI")) {
-                    game.setVsAI();
-                    continue;
-                }
+            // nothing of the current game is kept, the record brings its own clock and opponent
+            game.resetGame();
 
-                // if we encounter timer info, we set timer parameters
-                if (nextTurn.contains("GOLD")) {
-                    game.reserveGold = Integer.parseInt(nextTurn.substring("GOLD".length() + 1));
-                    continue;
-                }
-
-                if (nextTurn.contains("SILVER")) {
-                    game.reserveSilver = Integer.parseInt(nextTurn.substring("SILVER".length() + 1));
-                    continue;
-                }
+            // we are loading the game
+            for (GameListener listener : listeners) {
+                listener.changeControls();
+            }
 
-                if (nextTurn.contains("CURRENT")) {
-                    game.timeForTurn = Integer.parseInt(nextTurn.substring("CURRENT".length() + 1));
-                    continue;
-                }
+            // we do not need to set figures in this case
+            game.areFiguresSet = true;
+            history.clear();
 
-                // we split the turn into tokens and make moves
-                tokens = nextTurn.split("\\s+");
-                for (String token : tokens) {
-                    if (token.matches("^[0-9]+[sg]$"))
-                        continue;
-                    int oldCol = token.charAt(1) - 'a';
-                    int oldRow = boardSize - (token.charAt(2) - '0');
-
-                    int newCol = oldCol;
-                    int newRow = oldRow;
-
-                    // we convert the Arimaa directions into actual numbers
-                    switch (token.charAt(3)) {
-                        case 'n':
-                            newRow -= 1;
-                            break;
-                        case 'e':
-                            newCol += 1;
-                            break;
-                        case 's':
-                            newRow += 1;
-                            break;
-                        case 'w':
-                            newCol -= 1;
-                            break;
-                    }
-
-                    // we do the turn
-                    game.setPieceTypeAtPosition(oldRow, oldCol, newRow, newCol);
-                }
-                // once we finished reading one turn, we switch controller into another turn
-                game.finishPlayerTurn();
+            // initialize the views
+            for (GameListener listener : listeners) {
+                listener.initBoard();
             }
 
+            // the first game of the record is replayed on the model while it is being read
+            record.read(new Replay());
+
             // we also need to start the timer and show the board
-            game.mainMenu.setVisible(false);
+            game.setMenuVisible(false);
             game.running = true;
             game.createBoard(true);
-            scanner.close();
 
-        } catch (FileNotFoundException e) {
-            logger.error("File not found: {}", e.getMessage());
+            // the loaded game goes on in a new journal, unless it was already won
+            if (game.areFiguresSet) {
+                startJournal();
+            }
+            if (game.metrics != null) {
+                game.metrics.load.since(start);
+            }
+
+            // the AI was cancelled above, it plays again if the game stopped at its turn
+            if (game.areFiguresSet) {
+                game.startAITurnIfDue();
+            }
+
+        } catch (IOException e) {
+            if (game.logs) {
+                logger.error("Could not load {}: {}", name, e.getMessage());
+            }
         }
     }
 
+    /**
+     * A source of a game record, e.g. a save.
+     */
+    private interface Record {
+        /**
+         * Reads the record into a replay.
+         * 
+         * @param replay The replay of the record.
+         * @throws IOException If an I/O error occurs while reading.
+         */
+        void read(Replay replay) throws IOException;
+    }
+
     /**
      * Saves the current game state to a file with the specified filename.
+     * A name ending with {@link BinaryRecordWriter#EXTENSION} is saved in the
+     * binary format, any other name as text. The save is written to a temporary
+     * file first and renamed, so a crash never leaves a half written save.
      * 
      * @param filename The name of the file to save the game state to.
      * @param time     The remaining time for the current turn.
      * @throws IOException If an I/O error occurs while writing to the file.
      */
     public void saveGame(String filename, int time) throws IOException {
+        long start = System.nanoTime();
         if (filename.equals("")) {
             // if we received empty file name, we name it as today's date + time
             filename = Instant.now().toString();
         }
 
-        FileWriter writer = new FileWriter("arimaa/saves/" + filename + ".txt");
+        byte[] text = record(time, history.size()).toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] data = text;
+
+        if (filename.endsWith(BinaryRecordWriter.EXTENSION)) {
+            // the text is converted, so both formats hold exactly the same game
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                new GameRecordParser().parse(Channels.newChannel(new ByteArrayInputStream(text)),
+                        new BinaryRecordWriter(out));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            data = out.toByteArray();
+        } else {
+            filename += ".txt";
+        }
+
+        Files.createDirectories(savesDirectory);
+        Path temporary = Files.createTempFile(savesDirectory, ".save", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, savesDirectory.resolve(filename), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        if (game.metrics != null) {
+            game.metrics.save.since(start);
+        }
+        if (game.logs) {
+            logger.debug("Game saved as: {}", filename);
+        }
+    }
+
+    /**
+     * Returns the game so far in the text format.
+     * 
+     * @param time  The remaining time for the current turn.
+     * @param turns The number of turns from the history to write.
+     * @return the text of the save.
+     */
+    private StringBuilder record(int time, int turns) {
+        StringBuilder record = new StringBuilder();
 
         // we write each turn into file
-        for (String turn : history) {
-            writer.write(turn);
-            writer.write("\n");
+        for (String turn : history.subList(0, turns)) {
+            record.append(turn);
+            record.append("\n");
         }
 
         // we also provide information about the current timer parameters, as well as
         // whether the game was vs AI
-        writer.write("CURRENT " + time + "\n");
-        writer.write("GOLD " + game.reserveGold + "\n");
+        record.append("CURRENT " + time + "\n");
+        record.append("GOLD " + game.reserveGold + "\n");
 
         if (game.vsAI) {
-            writer.write("AI\n");
+            // the random AI keeps the plain flag, so older versions can read the save
+            String strategy = game.ai.getStrategy().getName();
+            record.append(RandomStrategy.NAME.equals(strategy) ? "AI\n" : "AI " + strategy + "\n");
         } else {
-            writer.write("SILVER " + game.reserveSilver + "\n");
+            record.append("SILVER " + game.reserveSilver + "\n");
+        }
+        return record;
+    }
+
+    /**
+     * Starts the journal of the game in progress with everything played so far,
+     * the following turns are appended as they are finished.
+     */
+    public void startJournal() {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.begin(record(game.timeForTurn, history.size()));
+        } catch (IOException e) {
+            journalFailed(e);
+        }
+    }
+
+    /**
+     * Closes the journal, it stays on the disk, so the game can be resumed.
+     */
+    public void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+        } catch (IOException e) {
+            journalFailed(e);
+        }
+    }
+
+    /**
+     * Returns the journal of a game that was not finished, e.g. because of a crash.
+     * 
+     * @return the journal to load, or null if there is no game to resume.
+     */
+    public File resumableGame() {
+        if (journal == null) {
+            return null;
         }
 
-        writer.close();
+        try {
+            Path latest = journal.latest();
+            return latest == null ? null : latest.toFile();
+        } catch (IOException e) {
+            journalFailed(e);
+            return null;
+        }
+    }
 
+    /**
+     * Stops writing the journal after an error, the game itself goes on.
+     * 
+     * @param e The error of the journal.
+     */
+    private void journalFailed(IOException e) {
         if (game.logs) {
-            logger.debug("Game saved as: {}.txt", filename);
+            logger.error("The game journal could not be written: {}", e.getMessage());
+        }
+
+        try {
+            journal.close();
+        } catch (IOException ignored) {
+            // the journal is given up anyway
+        }
+    }
+
+    /**
+     * Appends text to the history shown by the listeners.
+     * 
+     * @param text The text to append.
+     */
+    private void addToShownHistory(String text) {
+        for (GameListener listener : listeners) {
+            listener.addToHistory(text);
         }
     }
 
@@ -229,6 +359,15 @@ public class GameSerializer {
      */
     public void appendToHistory(String turn) {
         history.add(turn);
+
+        // the finished turn is handed to the writer of the journal, with the clock after it
+        if (journal != null && journal.isOpen()) {
+            try {
+                journal.append(turn + "\nGOLD " + game.reserveGold + "\nSILVER " + game.reserveSilver + "\n");
+            } catch (IOException e) {
+                journalFailed(e);
+            }
+        }
     }
 
     /**
@@ -236,6 +375,15 @@ public class GameSerializer {
      */
     public void clearHistory() {
         history.clear();
+
+        // the game is over, there is nothing to resume
+        if (journal != null) {
+            try {
+                journal.discard();
+            } catch (IOException e) {
+                journalFailed(e);
+            }
+        }
     }
 
     /**
@@ -246,4 +394,134 @@ public class GameSerializer {
     public String getLastTurn() {
         return history.removeLast();
     }
+
+    /**
+     * The Replay class applies a game read by the {@link GameRecordParser} to the
+     * model in bulk. The turns are validated and played on the bitboards only,
+     * the board and the history are shown once the whole game is replayed. Only
+     * the first game of the file is replayed, an illegal turn ends the replay.
+     */
+    private class Replay implements GameRecordHandler {
+        private final StringBuilder goldSetup = new StringBuilder("1g");
+        private final StringBuilder silverSetup = new StringBuilder("1s");
+        private final StringBuilder shown = new StringBuilder();
+        private StringBuilder setup = goldSetup;
+        private boolean setupRead;
+        private boolean stopped;
+        private boolean finished;
+
+        @Override
+        public void setup(int color) {
+            // the pieces are written to the line they were read from
+            setup = color == Colors.SILVER.ordinal() ? silverSetup : goldSetup;
+        }
+
+        @Override
+        public void piece(int code, int square) {
+            if (finished) {
+                return;
+            }
+
+            int row = square >>> 3;
+            int col = square & 7;
+            Piece piece = new Piece(code);
+            board.setPiece(row, col, piece);
+            setup.append(' ').append(piece.getNotation()).append((char) ('a' + col)).append(boardSize - row);
+        }
+
+        @Override
+        public void turn(int number, int color, long turn) {
+            if (finished || stopped) {
+                return;
+            }
+            readSetup();
+
+            String notation = game.replayTurn(turn);
+            if (notation == null) {
+                stopped = true;
+                if (game.logs && game.areFiguresSet) {
+                    logger.warn("Illegal turn {}, the rest of the game is not loaded", number);
+                }
+                return;
+            }
+            shown.append(notation).append('\n');
+        }
+
+        @Override
+        public void turnTime(int millis) {
+            if (!finished) {
+                game.timeForTurn = millis;
+            }
+        }
+
+        @Override
+        public void reserve(Colors color, int millis) {
+            if (finished) {
+                return;
+            }
+
+            if (color == Colors.GOLD) {
+                game.reserveGold = millis;
+            } else {
+                game.reserveSilver = millis;
+            }
+        }
+
+        @Override
+        public void opponent(String strategy) {
+            // we turn on vsAI mode with the saved strategy
+            if (!finished) {
+                game.setVsAI(Strategy.forName(strategy));
+            }
+        }
+
+        @Override
+        public void endGame() {
+            if (finished) {
+                return;
+            }
+            readSetup();
+            finished = true;
+
+            // a game won while replaying was already handed over to the views
+            if (!game.areFiguresSet) {
+                return;
+            }
+
+            // the pieces and the history are shown once, at the end
+            board.syncPieces();
+            if (game.whoseTurn == Colors.GOLD) {
+                shown.append(game.totalGoldTurnCount).append("g ");
+            } else {
+                shown.append(game.totalSilverTurnCount).append("s ");
+            }
+            addToShownHistory(shown.toString());
+
+            if (game.logs) {
+                logger.debug("Replayed {} turns", history.size() - 2);
+            }
+        }
+
+        @Override
+        public void error(long line) {
+            if (game.logs && !finished) {
+                logger.warn("Skipping unreadable line {}", line);
+            }
+        }
+
+        /**
+         * Adds the setup to the history once all pieces are placed.
+         */
+        private void readSetup() {
+            if (setupRead) {
+                return;
+            }
+            setupRead = true;
+
+            shown.append(goldSetup).append('\n');
+            appendToHistory(goldSetup.toString());
+            shown.append(silverSetup).append('\n');
+            appendToHistory(silverSetup.toString());
+        }
+    }
 }
@@ -0,0 +1,460 @@
+package com.cvut.fel.pjv.Utilities;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Engine.Evaluator;
+import com.cvut.fel.pjv.Engine.Rules;
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.TurnGenerator;
+import com.cvut.fel.pjv.Engine.Turns;
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Position;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The Perft class counts the nodes of the game tree to a fixed depth, so the
+ * move generation can be checked for both correctness and speed. It counts
+ * either distinct full turns (see {@link TurnGenerator}), or single steps as
+ * the player makes them (see {@link Rules}), where ending the turn is a move
+ * of its own. A position where the game is over has no children.
+ * <p>
+ * The counts can be split by the moves at the root (divide), remembered in a
+ * hash table for transpositions, and computed by several threads, each of
+ * them taking some of the root moves.
+ * <p>
+ * It can be run from the command line, e.g. {@code Perft --steps --divide 3 saves/game.txt}.
+ */
+public class Perft {
+    /**
+     * The action of ending the turn in step mode.
+     */
+    public static final long PASS = -1L;
+
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+    private static final long CONTEXT_MIX = 0xC2B2AE3D27D4EB4FL;
+
+    private final boolean stepMode;
+    private final int threads;
+    private final long[] cache;
+    private final int cacheMask;
+
+    /**
+     * The number of leaves counted by the last call.
+     */
+    public volatile long nodes;
+
+    /**
+     * The duration of the last call, in milliseconds.
+     */
+    public volatile long millis;
+
+    /**
+     * Constructs a Perft.
+     *
+     * @param stepMode counts single steps instead of full turns.
+     * @param hashMb   the size of the hash table in megabytes, 0 for none.
+     * @param threads  the number of threads, 1 counts on the calling thread.
+     */
+    public Perft(boolean stepMode, int hashMb, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of perft threads must be positive: " + threads);
+        }
+
+        this.stepMode = stepMode;
+        this.threads = threads;
+
+        // two longs per entry, the number of entries is a power of two
+        int entries = hashMb <= 0 ? 0 : Integer.highestOneBit(hashMb * (1 << 20) / 16);
+        this.cache = entries == 0 ? null : new long[entries * 2];
+        this.cacheMask = entries - 1;
+    }
+
+    /**
+     * Counts the leaves of the tree.
+     *
+     * @param position the root position, it is not changed.
+     * @param color    the color ordinal of the side to move.
+     * @param depth    the depth in turns, or in steps in step mode.
+     * @return the number of leaves.
+     */
+    public long count(Position position, int color, int depth) {
+        long total = 0;
+        for (long count : divide(position, color, depth).values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Counts the leaves of the tree below each move of the root.
+     *
+     * @param position the root position, it is not changed.
+     * @param color    the color ordinal of the side to move.
+     * @param depth    the depth in turns, or in steps in step mode, at least 1.
+     * @return the number of leaves for the notation of each root move, in the order
+     *         they were generated, the end of the turn is called "pass".
+     */
+    public Map<String, Long> divide(Position position, int color, int depth) {
+        long start = System.nanoTime();
+
+        Worker root = new Worker(position, depth);
+        long startKey = position.hash();
+        long[] actions = root.rootActions(color);
+
+        long[] counts = new long[actions.length];
+        if (threads == 1) {
+            for (int i = 0; i < actions.length; ++i) {
+                counts[i] = root.below(actions[i], color, startKey, depth);
+            }
+        } else {
+            // the generators are large, so each thread reuses its own worker for all its moves
+            ThreadLocal<Worker> workers = ThreadLocal.withInitial(() -> new Worker(position, depth));
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<ForkJoinTask<?>> tasks = new ArrayList<>();
+                for (int i = 0; i < actions.length; ++i) {
+                    int index = i;
+                    tasks.add(pool.submit(() -> {
+                        counts[index] = workers.get().below(actions[index], color, startKey, depth);
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        Map<String, Long> divided = new LinkedHashMap<>();
+        long total = 0;
+        for (int i = 0; i < actions.length; ++i) {
+            divided.merge(notation(position, actions[i]), counts[i], Long::sum);
+            total += counts[i];
+        }
+
+        nodes = total;
+        millis = (System.nanoTime() - start) / 1_000_000L;
+        return divided;
+    }
+
+    /**
+     * Returns the speed of the last call.
+     *
+     * @return the leaves counted per second.
+     */
+    public long nodesPerSecond() {
+        return nodes * 1000 / Math.max(millis, 1);
+    }
+
+    /**
+     * Loads the position at the end of a saved game by replaying it on a headless game.
+     *
+     * @param save the saved game.
+     * @return the position with the side to move set.
+     */
+    public static Position load(File save) {
+        GameController game = new GameController(false, true);
+        try {
+            game.serializer.loadGame(save);
+
+            Position position = new Position();
+            position.copyFrom(game.board.position);
+            position.setSide(game.whoseTurn.ordinal());
+            position.setStepsUsed(0);
+            return position;
+        } finally {
+            game.shutdown();
+        }
+    }
+
+    /**
+     * Runs perft from the command line and prints the counts with the speed.
+     *
+     * @param args {@code [--steps] [--divide] [--hash MB] [--threads N] depth [save]},
+     *             without a save the initial position is used.
+     */
+    public static void main(String[] args) {
+        boolean steps = false;
+        boolean divide = false;
+        int hashMb = 0;
+        int threads = 1;
+        int depth = -1;
+        String save = null;
+
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--steps" -> steps = true;
+                case "--divide" -> divide = true;
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> {
+                    if (depth < 0) {
+                        depth = Integer.parseInt(args[i]);
+                    } else {
+                        save = args[i];
+                    }
+                }
+            }
+        }
+        if (depth < 1) {
+            System.err.println("Usage: Perft [--steps] [--divide] [--hash MB] [--threads N] depth [save]");
+            return;
+        }
+
+        Position position;
+        if (save == null) {
+            Board board = new Board();
+            board.initBoard();
+            position = board.position;
+        } else {
+            position = load(new File(save));
+        }
+
+        Perft perft = new Perft(steps, hashMb, threads);
+        Map<String, Long> divided = perft.divide(position, position.getSide(), depth);
+        if (divide) {
+            divided.forEach((move, count) -> System.out.println(move + ": " + count));
+        }
+        System.out.printf("%s perft %d: %d nodes in %d ms, %d nodes/s%n",
+                steps ? "step" : "turn", depth, perft.nodes, perft.millis, perft.nodesPerSecond());
+    }
+
+    /**
+     * Returns the notation of a root action.
+     *
+     * @param position the root position.
+     * @param action   the packed turn, or the step or {@link #PASS} in step mode.
+     * @return the notation of the action.
+     */
+    private String notation(Position position, long action) {
+        if (!stepMode) {
+            return Turns.notation(position, action);
+        }
+        return action == PASS ? "pass" : Steps.notation(position, (int) action);
+    }
+
+    /**
+     * Looks up a count in the hash table, the entries are checked with the
+     * xor of the key and the count, so a torn write of another thread is a miss.
+     *
+     * @param key the key of the node including the depth.
+     * @return the count, or -1 if it is not known.
+     */
+    private long probe(long key) {
+        int index = ((int) (key ^ (key >>> 32)) & cacheMask) << 1;
+        long count = cache[index + 1];
+        return (cache[index] ^ count) == key ? count : -1;
+    }
+
+    private void store(long key, long count) {
+        int index = ((int) (key ^ (key >>> 32)) & cacheMask) << 1;
+        cache[index] = key ^ count;
+        cache[index + 1] = count;
+    }
+
+    /**
+     * The Worker class walks the tree on its own copy of the position,
+     * so each thread has one.
+     */
+    private final class Worker {
+        private final Position position = new Position();
+        private final TurnGenerator[] generators;
+        private final int[][] captures;
+
+        Worker(Position start, int depth) {
+            position.copyFrom(start);
+            position.setStepsUsed(0);
+
+            int plies = stepMode ? 1 : depth + 1;
+            this.generators = new TurnGenerator[plies];
+            this.captures = new int[plies][Turns.MAX_STEPS];
+            for (int i = 0; i < plies; ++i) {
+                generators[i] = new TurnGenerator();
+            }
+        }
+
+        /**
+         * Lists the moves of the root.
+         */
+        long[] rootActions(int color) {
+            if (!stepMode) {
+                TurnGenerator generator = generators[0];
+                int count = generator.generate(position, color);
+                long[] actions = new long[count];
+                System.arraycopy(generator.turns, 0, actions, 0, count);
+                return actions;
+            }
+
+            // the turn can't be ended at the root, as no step was made yet
+            long[] actions = new long[4 * Position.SQUARES];
+            int count = 0;
+            long pieces = position.occupied;
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+
+                long targets = Position.NEIGHBOURS[from] & ~position.occupied;
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+
+                    if (Rules.validate(position, Rules.START, color, from, to) != Rules.ILLEGAL) {
+                        actions[count++] = Steps.step(from, to);
+                    }
+                }
+            }
+            return Arrays.copyOf(actions, count);
+        }
+
+        /**
+         * Counts the leaves below one move of the root.
+         */
+        long below(long action, int color, long startKey, int depth) {
+            if (!stepMode) {
+                makeTurn(action, 0, color);
+                long count = Evaluator.winner(position, color) != -1 ? (depth == 1 ? 1 : 0)
+                        : turns(color ^ 1, depth - 1, 1);
+                unmakeTurn(action, 0, color);
+                return count;
+            }
+
+            int from = Steps.from((int) action);
+            int to = Steps.to((int) action);
+            long context = Rules.validate(position, Rules.START, color, from, to);
+            int capture = position.step(from, to);
+            long count = steps(color, context, startKey, depth - 1);
+            position.undoStep(from, to, capture);
+            return count;
+        }
+
+        /**
+         * Counts distinct full turns.
+         */
+        private long turns(int color, int depth, int ply) {
+            if (depth == 0) {
+                return 1;
+            }
+
+            long key = position.key ^ (depth * DEPTH_MIX);
+            if (cache != null) {
+                long known = probe(key);
+                if (known >= 0) {
+                    return known;
+                }
+            }
+
+            TurnGenerator generator = generators[ply];
+            int count = generator.generate(position, color);
+
+            long total;
+            if (depth == 1) {
+                // every turn is a leaf, even the ones that end the game
+                total = count;
+            } else {
+                total = 0;
+                for (int i = 0; i < count; ++i) {
+                    long turn = generator.turns[i];
+                    makeTurn(turn, ply, color);
+                    if (Evaluator.winner(position, color) == -1) {
+                        total += turns(color ^ 1, depth - 1, ply + 1);
+                    }
+                    unmakeTurn(turn, ply, color);
+                }
+            }
+
+            if (cache != null) {
+                store(key, total);
+            }
+            return total;
+        }
+
+        /**
+         * Counts single steps and ends of turns.
+         */
+        private long steps(int color, long context, long startKey, int depth) {
+            if (depth == 0) {
+                return 1;
+            }
+
+            long key = 0;
+            if (cache != null) {
+                key = position.key ^ (depth * DEPTH_MIX) ^ (context * CONTEXT_MIX) ^ Long.rotateLeft(startKey, 17);
+                long known = probe(key);
+                if (known >= 0) {
+                    return known;
+                }
+            }
+
+            long total = 0;
+
+            // the turn can be ended, then the game is either over or the other side starts
+            if (Rules.canEndTurn(position, context, startKey)) {
+                if (depth == 1) {
+                    ++total;
+                } else if (Evaluator.winner(position, color) == -1) {
+                    position.setSide(color ^ 1);
+                    total += steps(color ^ 1, Rules.START, position.hash(), depth - 1);
+                    position.setSide(color);
+                }
+            }
+
+            if (Rules.stepsUsed(context) < Rules.MAX_STEPS) {
+                long pieces = position.occupied;
+                while (pieces != 0) {
+                    int from = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+
+                    long targets = Position.NEIGHBOURS[from] & ~position.occupied;
+                    while (targets != 0) {
+                        int to = Long.numberOfTrailingZeros(targets);
+                        targets &= targets - 1;
+
+                        long next = Rules.validate(position, context, color, from, to);
+                        if (next == Rules.ILLEGAL) {
+                            continue;
+                        }
+                        if (depth == 1) {
+                            ++total;
+                            continue;
+                        }
+
+                        int capture = position.step(from, to);
+                        total += steps(color, next, startKey, depth - 1);
+                        position.undoStep(from, to, capture);
+                    }
+                }
+            }
+
+            if (cache != null) {
+                store(key, total);
+            }
+            return total;
+        }
+
+        private void makeTurn(long turn, int ply, int color) {
+            int[] captured = captures[ply];
+            for (int i = 0; i < Turns.length(turn); ++i) {
+                int step = Turns.step(turn, i);
+                captured[i] = position.step(Steps.from(step), Steps.to(step));
+            }
+            position.setSide(color ^ 1);
+        }
+
+        private void unmakeTurn(long turn, int ply, int color) {
+            position.setSide(color);
+            int[] captured = captures[ply];
+            for (int i = Turns.length(turn) - 1; i >= 0; --i) {
+                int step = Turns.step(turn, i);
+                position.undoStep(Steps.from(step), Steps.to(step), captured[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Models.Position;
+
+/**
+ * The StepTrace class writes every step played or taken back into a compact
+ * binary file, as a cheap replacement of the board dumps in the debug log.
+ * The file starts with the magic "ARMT" and the version byte, followed by
+ * records of 16 bytes, numbers are big-endian:
+ * <ul>
+ * <li>4 bytes: the milliseconds since the trace was opened,</li>
+ * <li>4 bytes: the step in the low 12 bits (see {@link Steps#step}), the
+ * capture in the next 10 bits (the piece code and the square, all ones for
+ * none), then a bit set for a step taken back, two bits with the number of
+ * steps used before the step and a bit with the side to move,</li>
+ * <li>8 bytes: the key of the position after the step.</li>
+ * </ul>
+ * The records are collected in a buffer and written once it is full, so
+ * tracing a step costs no more than a few stores.
+ * <p>
+ * Usage: {@code StepTrace trace} prints a trace as text.
+ */
+public class StepTrace {
+    /**
+     * The version written into the header.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of one record in bytes.
+     */
+    public static final int RECORD_BYTES = 16;
+
+    static final byte[] MAGIC = "ARMT".getBytes(StandardCharsets.US_ASCII);
+    static final int NO_CAPTURE = 0x3FF;
+    static final int UNDONE = 1 << 22;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final long opened = System.nanoTime();
+
+    /**
+     * Opens a new trace, an existing file is replaced.
+     *
+     * @param file the file to write the trace into.
+     * @throws IOException If an I/O error occurs while creating the file.
+     */
+    public StepTrace(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.put(MAGIC).put((byte) VERSION);
+    }
+
+    /**
+     * Traces a step that was played.
+     *
+     * @param step      the packed step.
+     * @param capture   the piece code and square of the captured piece (see
+     *                  {@link com.cvut.fel.pjv.Engine.UndoStack}), or {@link Position#NO_CAPTURE}.
+     * @param stepsUsed the steps used in the turn before the step.
+     * @param side      the side to move.
+     * @param key       the key of the position after the step.
+     * @throws IOException If an I/O error occurs while writing the trace.
+     */
+    public void step(int step, int capture, int stepsUsed, int side, long key) throws IOException {
+        record(step, capture, stepsUsed, side, key, 0);
+    }
+
+    /**
+     * Traces a step that was taken back.
+     *
+     * @param step      the packed step that was taken back.
+     * @param capture   the capture that was taken back, or {@link Position#NO_CAPTURE}.
+     * @param stepsUsed the steps used in the turn after the step was taken back.
+     * @param side      the side to move.
+     * @param key       the key of the position after the step was taken back.
+     * @throws IOException If an I/O error occurs while writing the trace.
+     */
+    public void undo(int step, int capture, int stepsUsed, int side, long key) throws IOException {
+        record(step, capture, stepsUsed, side, key, UNDONE);
+    }
+
+    private synchronized void record(int step, int capture, int stepsUsed, int side, long key, int flags)
+            throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        if (buffer.remaining() < RECORD_BYTES) {
+            flush();
+        }
+
+        int packed = (step & 0xFFF) | (capture == Position.NO_CAPTURE ? NO_CAPTURE : capture & 0x3FF) << 12
+                | flags | (stepsUsed & 3) << 23 | (side & 1) << 25;
+        buffer.putInt((int) ((System.nanoTime() - opened) / 1_000_000));
+        buffer.putInt(packed);
+        buffer.putLong(key);
+    }
+
+    /**
+     * Writes the collected records into the file.
+     *
+     * @throws IOException If an I/O error occurs while writing the trace.
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the collected records and closes the file.
+     *
+     * @throws IOException If an I/O error occurs while writing the trace.
+     */
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Prints a trace as text, one step per line.
+     *
+     * @param file the trace.
+     * @param out  the stream to print to.
+     * @return the number of records.
+     * @throws IOException If an I/O error occurs or the file is not a trace.
+     */
+    public static int print(Path file, PrintStream out) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        byte[] magic = new byte[MAGIC.length];
+        if (data.remaining() < MAGIC.length + 1 || data.get(magic).get() != VERSION
+                || !Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a step trace: " + file);
+        }
+
+        int records = 0;
+        StringBuilder line = new StringBuilder();
+        while (data.remaining() >= RECORD_BYTES) {
+            int millis = data.getInt();
+            int packed = data.getInt();
+            long key = data.getLong();
+
+            line.setLength(0);
+            line.append(millis).append(' ').append((packed >>> 25 & 1) == Colors.GOLD.ordinal() ? 'g' : 's')
+                    .append(packed >>> 23 & 3).append(' ');
+            if ((packed & UNDONE) != 0) {
+                line.append("undo ");
+            }
+            int step = packed & 0xFFF;
+            line.append(square(Steps.from(step))).append('-').append(square(Steps.to(step)));
+            int capture = packed >>> 12 & 0x3FF;
+            if (capture != NO_CAPTURE) {
+                line.append(" x").append(square(capture & 63));
+            }
+            line.append(' ').append(Long.toHexString(key));
+            out.println(line);
+            ++records;
+        }
+        return records;
+    }
+
+    private static String square(int square) {
+        return "" + (char) ('a' + (square & 7)) + (8 - (square >>> 3));
+    }
+
+    /**
+     * Prints the trace given on the command line.
+     *
+     * @param args the trace.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: StepTrace trace");
+            return;
+        }
+
+        try {
+            print(Path.of(args[0]), System.out);
+        } catch (IOException e) {
+            System.err.println("Could not read " + args[0] + ": " + e.getMessage());
+        }
+    }
+}
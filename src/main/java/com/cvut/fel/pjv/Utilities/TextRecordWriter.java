@@ -0,0 +1,152 @@
+package com.cvut.fel.pjv.Utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.Turns;
+import com.cvut.fel.pjv.Models.Position;
+
+/**
+ * The TextRecordWriter class writes the games it receives as text saves, the
+ * format read by the {@link GameRecordParser}, games are separated by blank lines.
+ * The pieces are followed on a position to name them in the notation, steps
+ * that can't be made on the board are left out. Errors of the output are
+ * thrown as {@link UncheckedIOException}.
+ */
+public class TextRecordWriter implements GameRecordHandler {
+    private final Writer out;
+    private final Position position = new Position();
+    private final StringBuilder line = new StringBuilder();
+
+    private boolean setupWritten;
+    private boolean firstGame = true;
+    private int number;
+    private int color;
+
+    /**
+     * Constructs a TextRecordWriter.
+     *
+     * @param out the writer the games are written to, it is not closed.
+     */
+    public TextRecordWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void startGame() {
+        if (!firstGame) {
+            write("");
+        }
+        firstGame = false;
+
+        position.clear();
+        setupWritten = false;
+        number = 2;
+        color = Colors.GOLD.ordinal();
+    }
+
+    @Override
+    public void piece(int code, int square) {
+        position.remove(square);
+        position.put(square, code);
+    }
+
+    @Override
+    public void turn(int number, int color, long turn) {
+        writeSetup();
+        if (number > 0 && color >= 0) {
+            this.number = number;
+            this.color = color;
+        }
+
+        line.setLength(0);
+        line.append(this.number).append(this.color == Colors.GOLD.ordinal() ? 'g' : 's');
+        for (int i = 0; i < Turns.length(turn); ++i) {
+            int step = Turns.step(turn, i);
+            int from = Steps.from(step);
+            int to = Steps.to(step);
+            if (position.pieceAt(from) == Position.EMPTY || position.pieceAt(to) != Position.EMPTY) {
+                continue;
+            }
+
+            line.append(' ');
+            Steps.appendNotation(line, position, step);
+            int capture = position.step(from, to);
+            if (capture != Position.NO_CAPTURE) {
+                line.append(' ');
+                Steps.appendCapture(line, capture);
+            }
+        }
+        write(line);
+
+        // the next turn is the other side's, a new number starts with gold
+        if (this.color == Colors.SILVER.ordinal()) {
+            ++this.number;
+        }
+        this.color ^= 1;
+    }
+
+    @Override
+    public void turnTime(int millis) {
+        writeSetup();
+        write("CURRENT " + millis);
+    }
+
+    @Override
+    public void reserve(Colors color, int millis) {
+        writeSetup();
+        write(color + " " + millis);
+    }
+
+    @Override
+    public void opponent(String strategy) {
+        writeSetup();
+        write(strategy.isEmpty() ? "AI" : "AI " + strategy);
+    }
+
+    @Override
+    public void endGame() {
+        writeSetup();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the setup lines once all pieces are known, gold first, each
+     * side from the first rank up and from the a file on.
+     */
+    private void writeSetup() {
+        if (setupWritten) {
+            return;
+        }
+        setupWritten = true;
+
+        for (int side = Colors.GOLD.ordinal(); side >= 0; --side) {
+            line.setLength(0);
+            line.append(side == Colors.GOLD.ordinal() ? "1g" : "1s");
+            for (int row = 7; row >= 0; --row) {
+                for (int col = 0; col < 8; ++col) {
+                    int code = position.pieceAt(Position.square(row, col));
+                    if (code != Position.EMPTY && Position.colorOf(code) == side) {
+                        line.append(' ');
+                        Steps.appendPiece(line, code, Position.square(row, col));
+                    }
+                }
+            }
+            write(line);
+        }
+    }
+
+    private void write(CharSequence text) {
+        try {
+            out.append(text).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.cvut.fel.pjv.Views;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.GameMetrics;
+
+import javax.swing.ImageIcon;
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The BoardCanvas class paints the whole board in one component: the
+ * background with the traps, the pieces and the selected square.
+ * <p>
+ * The scaled background is kept in a {@link VolatileImage}, so a repaint only
+ * copies it and draws the pre-scaled pictures of the pieces (see
+ * {@link SpriteCache}). A click is mapped to its square by dividing the
+ * coordinates by the size of the squares.
+ */
+public class BoardCanvas extends JComponent {
+    private static final int SIZE = 8;
+    private static final Color TRAP = new Color(0, 0, 0, 60);
+    private static final Color SELECTED = new Color(255, 215, 0, 110);
+
+    private final Image backImg;
+    private final SpriteCache sprites;
+    private final int[] shown = new int[Position.SQUARES];
+
+    private VolatileImage background;
+    private IntConsumer clickHandler;
+    private GameMetrics metrics;
+    private int selected = -1;
+
+    /**
+     * Constructs a BoardCanvas showing an empty board.
+     */
+    public BoardCanvas() {
+        backImg = new ImageIcon(getClass().getResource("/PNG/BoardStoneBig.jpg")).getImage();
+        sprites = new SpriteCache();
+        Arrays.fill(shown, Position.EMPTY);
+        setOpaque(true);
+
+        // the pictures follow the size of the squares, the background is painted again
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                sprites.resize(Math.min(getWidth(), getHeight()) / SIZE * 15 / 16);
+                if (background != null) {
+                    background.flush();
+                    background = null;
+                }
+            }
+        });
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int square = squareAt(e.getX(), e.getY());
+                if (square >= 0 && clickHandler != null && isEnabled()) {
+                    clickHandler.accept(square);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the action done when a square is clicked.
+     *
+     * @param clickHandler the action, it gets the clicked square.
+     */
+    public void setClickHandler(IntConsumer clickHandler) {
+        this.clickHandler = clickHandler;
+    }
+
+    /**
+     * Sets the metrics the time of painting is recorded in.
+     *
+     * @param metrics the metrics, or null if the time is not recorded.
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Shows a piece on a square, only the square is repainted if it changed.
+     *
+     * @param square the square.
+     * @param code   the piece code or {@link Position#EMPTY}.
+     */
+    public void setPiece(int square, int code) {
+        if (shown[square] != code) {
+            shown[square] = code;
+            repaintSquare(square);
+        }
+    }
+
+    /**
+     * Returns the piece shown on a square.
+     *
+     * @param square the square.
+     * @return the piece code or {@link Position#EMPTY}.
+     */
+    public int getPiece(int square) {
+        return shown[square];
+    }
+
+    /**
+     * Highlights a square, only the old and the new square are repainted.
+     *
+     * @param square the square or -1 to remove the highlight.
+     */
+    public void setSelected(int square) {
+        if (selected != square) {
+            if (selected >= 0) {
+                repaintSquare(selected);
+            }
+            selected = square;
+            if (selected >= 0) {
+                repaintSquare(selected);
+            }
+        }
+    }
+
+    /**
+     * Removes all pieces and the highlight.
+     */
+    public void clear() {
+        Arrays.fill(shown, Position.EMPTY);
+        selected = -1;
+        repaint();
+    }
+
+    /**
+     * Returns the square under a point of the component.
+     *
+     * @param x the horizontal coordinate.
+     * @param y the vertical coordinate.
+     * @return the square, or -1 if the point is outside the board.
+     */
+    public int squareAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            return -1;
+        }
+        return Position.square(y * SIZE / getHeight(), x * SIZE / getWidth());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (getWidth() < SIZE || getHeight() < SIZE) {
+            return;
+        }
+        long start = System.nanoTime();
+        paintBackground(g);
+
+        // only the squares in the clip are painted
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int firstCol = Math.max(0, clip.x * SIZE / getWidth());
+        int firstRow = Math.max(0, clip.y * SIZE / getHeight());
+        int lastCol = Math.min(SIZE - 1, (clip.x + clip.width - 1) * SIZE / getWidth());
+        int lastRow = Math.min(SIZE - 1, (clip.y + clip.height - 1) * SIZE / getHeight());
+
+        for (int row = firstRow; row <= lastRow; ++row) {
+            for (int col = firstCol; col <= lastCol; ++col) {
+                int square = Position.square(row, col);
+                Rectangle bounds = squareBounds(square);
+                if (square == selected) {
+                    g.setColor(SELECTED);
+                    g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+                }
+                if (shown[square] != Position.EMPTY) {
+                    g.drawImage(sprites.sprite(shown[square]), bounds.x + (bounds.width - sprites.size()) / 2,
+                            bounds.y + (bounds.height - sprites.size()) / 2, null);
+                }
+            }
+        }
+
+        if (metrics != null) {
+            metrics.repaint.since(start);
+        }
+    }
+
+    /**
+     * Copies the background into the component, it is rendered again when the
+     * size changed or the video memory was lost.
+     */
+    private void paintBackground(Graphics g) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config == null) {
+            renderBackground((Graphics2D) g.create());
+            return;
+        }
+
+        do {
+            if (background == null || background.getWidth() != getWidth() || background.getHeight() != getHeight()) {
+                if (background != null) {
+                    background.flush();
+                }
+                background = config.createCompatibleVolatileImage(getWidth(), getHeight());
+                renderBackground(background.createGraphics());
+            } else {
+                int state = background.validate(config);
+                if (state == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    background.flush();
+                    background = null;
+                    continue;
+                }
+                if (state == VolatileImage.IMAGE_RESTORED) {
+                    renderBackground(background.createGraphics());
+                }
+            }
+            g.drawImage(background, 0, 0, null);
+        } while (background == null || background.contentsLost());
+    }
+
+    /**
+     * Draws the scaled board picture and the traps, the graphics are disposed.
+     */
+    private void renderBackground(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(backImg, 0, 0, getWidth(), getHeight(), null);
+
+        // we darken the traps
+        g.setColor(TRAP);
+        long traps = Position.TRAPS;
+        while (traps != 0) {
+            Rectangle bounds = squareBounds(Long.numberOfTrailingZeros(traps));
+            traps &= traps - 1;
+            g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        }
+        g.dispose();
+    }
+
+    private void repaintSquare(int square) {
+        repaint(squareBounds(square));
+    }
+
+    /**
+     * Returns the area of a square, the squares share the component like in a grid layout.
+     * The edges are rounded up, so the area holds exactly the points {@link #squareAt} maps to the square.
+     */
+    Rectangle squareBounds(int square) {
+        int row = square / SIZE;
+        int col = square % SIZE;
+        int x = edge(col, getWidth());
+        int y = edge(row, getHeight());
+        return new Rectangle(x, y, edge(col + 1, getWidth()) - x, edge(row + 1, getHeight()) - y);
+    }
+
+    private static int edge(int index, int length) {
+        return (index * length + SIZE - 1) / SIZE;
+    }
+}
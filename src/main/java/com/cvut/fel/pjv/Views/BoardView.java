@@ -1,30 +1,23 @@
 package com.cvut.fel.pjv.Views;
 
 import com.cvut.fel.pjv.Controllers.GameController;
-import com.cvut.fel.pjv.Utilities.Figures;
+import com.cvut.fel.pjv.Controllers.GameListener;
+import com.cvut.fel.pjv.Models.Position;
 import com.cvut.fel.pjv.Utilities.Colors;
 
 import javax.swing.*;
-import java.awt.*;
-import java.awt.event.ActionListener;
-import java.awt.event.ActionEvent;
 
 /**
  * The view responsible for displaying the Arimaa game board and handling user
  * interactions related to the board.
  * This class extends JFrame to create a graphical user interface.
  */
-public class BoardView extends JFrame {
+public class BoardView extends JFrame implements GameListener {
     private final int boardSize;
     private GameController game;
 
-    // 2D array of JButtons representing pieces
-    private JButton[][] pieceLabels;
-
-    public boolean areFiguresSet;
-
-    private JPanel panel;
-    private Image backImg;
+    // the board with the pieces, painted as one component
+    private final BoardCanvas canvas;
 
     private boolean firstClick;
     private int selectedRow;
@@ -44,205 +37,135 @@ public class BoardView extends JFrame {
         this.game = game;
         this.firstClick = true; // flag to check if the player has already chosen the figure
         this.boardSize = 8;
-        this.areFiguresSet = false; // flag to check if the figures are already set
-        this.pieceLabels = new JButton[boardSize][boardSize];
-
-        // we get the image for background
-        ImageIcon imageIcon = new ImageIcon(getClass().getResource("/PNG/BoardStoneBig.jpg"));
-        backImg = imageIcon.getImage();
-
-        // we create the panel with chosen background
-        panel = new JPanel() {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                if (backImg != null) {
-                    g.drawImage(backImg, 0, 0, getWidth(), getHeight(), this);
-                }
-            }
-        };
 
-        panel.setLayout(new GridLayout(boardSize, boardSize));
-        add(panel);
+        canvas = new BoardCanvas();
+        canvas.setClickHandler(this::squareClicked);
+        canvas.setMetrics(game.metrics);
+        add(canvas);
     }
 
     /**
      * Initializes the game board GUI components.
      */
+    @Override
     public void initBoard() {
-        // clean up the panel
-        panel.removeAll();
-
-        // add JButtons for each square of the board
-        for (int row = 0; row < boardSize; row++) {
-            for (int col = 0; col < boardSize; col++) {
-                JButton pieceLabel = new JButton();
-                pieceLabel.setOpaque(false);
-                pieceLabel.setContentAreaFilled(false);
-                pieceLabel.setBorderPainted(false);
-                panel.add(pieceLabel);
-
-                // add action that will handle the logic of choice
-                pieceLabel.addActionListener(new ActionListener() {
-                    @Override
-                    public void actionPerformed(ActionEvent e) {
-                        if (!areFiguresSet) {
-                            // if figures are not set, we are trying to swap them
-                            if (firstClick && pieceLabel.getIcon() != null) {
-                                pieceSelected(pieceLabel);
-                                firstClick = false;
-
-                            } else {
-                                // if the swap is finished, we are back to choosing figures
-                                if (pieceSwapped(pieceLabel)) {
-                                    firstClick = true;
-                                }
-                            }
-
-                        } else {
-                            // figures are set, so we are trying to make a move
-                            if (firstClick && pieceLabel.getIcon() != null) {
-                                pieceSelected(pieceLabel);
-                                firstClick = false;
-
-                            } else {
-                                if (pieceMoved(pieceLabel)) {
-                                    firstClick = true;
-
-                                } else {
-                                    // if the empty cell was chosen, we are still in the Figure Selected state
-                                    pieceSelected(pieceLabel);
-                                }
-                            }
-                        }
-                    }
-                });
-                pieceLabels[row][col] = pieceLabel;
-            }
-        }
+        // clean up the board
+        canvas.clear();
+        canvas.setEnabled(true);
+        firstClick = true;
 
         this.setVisible(true);
     }
 
-    /**
-     * Retrieves the file path for the image corresponding to the given piece type.
-     * 
-     * @param pieceType The type of the game piece.
-     * @return The file path for the image of the specified piece.
-     */
-    private String getImagePathForPiece(String pieceType) {
-        String filepath = "/PNG/Figures/" + pieceType + ".png";
-        return filepath;
+    @Override
+    public void showBoard() {
+        setVisible(true);
     }
 
     /**
      * Updates the game board with the current state of the game.
+     * Only the squares whose piece changed are repainted.
      */
+    @Override
     public void updateBoard() {
-        for (int row = 0; row < boardSize; row++) {
-            for (int col = 0; col < boardSize; col++) {
-                Figures pieceType = game.getPieceTypeAtPosition(row, col);
-                Colors pieceColor = game.getPieceColorAtPosition(row, col);
-                StringBuilder piece = new StringBuilder();
-
-                // if the figure exists on that cell, we start forming the string to find the
-                // picture
-                if (pieceType != null) {
-                    piece.append(pieceColor.ordinal());
-                    piece.append(pieceType.ordinal());
-                }
+        // the pieces are read straight from the position, it is always up to date
+        Position position = game.board.position;
+        for (int square = 0; square < Position.SQUARES; ++square) {
+            canvas.setPiece(square, position.pieceAt(square));
+        }
+    }
+
+    /**
+     * Handles a click on a square of the board.
+     *
+     * @param square The clicked square.
+     */
+    private void squareClicked(int square) {
+        boolean occupied = canvas.getPiece(square) != Position.EMPTY;
+
+        if (!game.areFiguresSet) {
+            // if figures are not set, we are trying to swap them
+            if (firstClick && occupied) {
+                pieceSelected(square);
+                firstClick = false;
+
+            } else if (!firstClick && pieceSwapped(square)) {
+                // if the swap is finished, we are back to choosing figures
+                firstClick = true;
+            }
 
-                if (piece.length() > 0) {
-                    // we search for file in the directory and add it to the JButton
-                    String imagePath = getImagePathForPiece(piece.toString());
-                    ImageIcon icon = new ImageIcon(getClass().getResource(imagePath));
-                    pieceLabels[row][col].setIcon(icon);
+        } else {
+            // figures are set, so we are trying to make a move
+            if (firstClick && occupied) {
+                pieceSelected(square);
+                firstClick = false;
+
+            } else if (!firstClick) {
+                if (pieceMoved(square)) {
+                    firstClick = true;
 
                 } else {
-                    pieceLabels[row][col].setIcon(null);
+                    // if another figure was chosen, it becomes the selected one
+                    pieceSelected(square);
                 }
             }
         }
+        canvas.setSelected(firstClick ? -1 : Position.square(selectedRow, selectedCol));
     }
 
     /**
      * Handles the selection of a game piece on the board.
      * 
-     * @param pieceLabel The JButton representing the selected piece.
+     * @param square The square of the selected piece.
      */
-    private void pieceSelected(JButton pieceLabel) {
-        // we search for chosen piece and return its coordinates on the board
-        for (int i = 0; i < boardSize; ++i) {
-            for (int j = 0; j < boardSize; ++j) {
-                if (pieceLabels[i][j] == pieceLabel) {
-                    selectedRow = i;
-                    selectedCol = j;
-                    break;
-                }
-            }
-        }
+    private void pieceSelected(int square) {
+        selectedRow = square / boardSize;
+        selectedCol = square % boardSize;
     }
 
     /**
      * Moves a selected game piece to the specified position on the board.
      * 
-     * @param pieceLabel The JButton representing the destination position for the
-     *                   piece.
+     * @param square The destination square for the piece.
      * @return True if the piece was successfully moved, otherwise false.
      */
-    private boolean pieceMoved(JButton pieceLabel) {
-        if (pieceLabel.getIcon() != null) { // if the click was on another figure, we do not consider it
+    private boolean pieceMoved(int square) {
+        if (canvas.getPiece(square) != Position.EMPTY) { // if the click was on another figure, we do not consider it
             return false;
         }
 
-        for (int i = 0; i < boardSize; ++i) {
-            for (int j = 0; j < boardSize; ++j) {
-                if (pieceLabels[i][j] == pieceLabel) {
-                    // the position was found, so now we handle the logic of the turn
-                    game.setPieceTypeAtPosition(selectedRow, selectedCol, i, j);
-                    break;
-                }
-            }
-        }
-
+        // we handle the logic of the turn
+        game.setPieceTypeAtPosition(selectedRow, selectedCol, square / boardSize, square % boardSize);
         return true;
     }
 
     /**
      * Swaps a selected game piece with another piece on the board.
      * 
-     * @param pieceLabel The JButton representing the destination position for the
-     *                   piece.
+     * @param square The square of the piece to swap with.
      * @return True if the pieces were successfully swapped, otherwise false.
      */
-    private boolean pieceSwapped(JButton pieceLabel) {
-        if (pieceLabel.getIcon() == null) { // if we are setting the figures and clicked the empty cell, we do not
-                                            // consider it
+    private boolean pieceSwapped(int square) {
+        if (canvas.getPiece(square) == Position.EMPTY) { // if we are setting the figures and clicked the empty cell,
+                                                          // we do not consider it
             return false;
         }
 
-        for (int i = 0; i < boardSize; ++i) {
-            for (int j = 0; j < boardSize; ++j) {
-                if (pieceLabels[i][j] == pieceLabel) {
-                    // we handle the swap
-                    game.setPieceTypeAtPosition(selectedRow, selectedCol, i, j);
-                    break;
-                }
-            }
-        }
-
+        // we handle the swap
+        game.setPieceTypeAtPosition(selectedRow, selectedCol, square / boardSize, square % boardSize);
         return true;
     }
 
     /**
-     * Disables all game board components and indicates that the game has ended.
+     * Disables the game board and indicates that the game has ended.
      */
     public void handeEndGame() {
-        for (int i = 0; i < boardSize; ++i) {
-            for (int j = 0; j < boardSize; ++j) {
-                pieceLabels[i][j].setEnabled(false);
-            }
-        }
-        areFiguresSet = false;
+        canvas.setEnabled(false);
+        canvas.setSelected(-1);
+    }
+
+    @Override
+    public void handleWin(Colors winner) {
+        handeEndGame();
     }
 }
@@ -1,12 +1,16 @@
 package com.cvut.fel.pjv.Views;
 
 import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Controllers.GameListener;
+import com.cvut.fel.pjv.Utilities.BinaryRecordWriter;
 import com.cvut.fel.pjv.Utilities.Colors;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 
 import java.io.IOException;
 
@@ -16,7 +20,7 @@ import java.io.IOException;
  * and handling user interactions related to game controls.
  * This class extends JFrame to create a graphical user interface.
  */
-public class ControlsView extends JFrame {
+public class ControlsView extends JFrame implements GameListener {
     private boolean areFiguresSet = false;
     private boolean isGameFinished = false;
 
@@ -24,7 +28,8 @@ public class ControlsView extends JFrame {
     private JButton controls;
     private JButton save;
     private JButton stepBack;
-    private JTextArea textArea;
+    private HistoryModel history;
+    private JList<String> historyList;
 
     /**
      * Constructs a new ControlsView instance with the specified game controller.
@@ -45,12 +50,25 @@ public class ControlsView extends JFrame {
         JPanel panel = new JPanel();
         panel.setLayout(new GridLayout(5, 1));
 
-        // text area to store the history
-        this.textArea = new JTextArea();
-        textArea.setLineWrap(true);
-        textArea.setWrapStyleWord(true);
+        // list to show the history, one turn per row; every row has the size of
+        // the longest one, so only the visible rows are ever measured and painted
+        this.history = new HistoryModel();
+        this.historyList = new JList<>(history);
+        historyList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        historyList.setPrototypeCellValue("1g" + " Ra1".repeat(16));
 
-        JScrollPane scrollPane = new JScrollPane(textArea);
+        // a click on a turn takes the game back to its start
+        historyList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = historyList.locationToIndex(e.getPoint());
+                if (index >= 0 && historyList.getCellBounds(index, index).contains(e.getPoint())) {
+                    turnClicked(game, index);
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(historyList);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
 
         panel.add(scrollPane);
@@ -66,21 +84,20 @@ public class ControlsView extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 try {
-                    // first we store the time before the button press
+                    // we stop the clock and store the time before the button press
+                    game.pauseClock();
                     int timeBeforeSave = game.timeForTurn;
 
-                    // we stop the timer
-                    game.running = false;
-
                     // we register the user input for the name and try to save the game
-                    String userInput = JOptionPane.showInputDialog("Name of save: ");
+                    String userInput = JOptionPane.showInputDialog("Name of save (ending with " + BinaryRecordWriter.EXTENSION + " for the binary format): ");
                     if (userInput != null)
                         game.serializer.saveGame(userInput, timeBeforeSave);
-                    game.running = true;
                 } catch (IOException e1) {
                     if (game.logs) {
                         System.err.println("File could not be opened");
                     }
+                } finally {
+                    game.resumeClock();
                 }
             }
         });
@@ -117,7 +134,7 @@ public class ControlsView extends JFrame {
                     game.boardView.setVisible(false);
 
                     // we clear the history
-                    textArea.setText("");
+                    history.clear();
 
                     // we set every parameter to initial values
                     isGameFinished = false;
@@ -143,6 +160,7 @@ public class ControlsView extends JFrame {
      * @param left      The time remaining in seconds.
      * @param whoseTurn The color of the player whose turn it is.
      */
+    @Override
     public void updateTime(int left, Colors whoseTurn) {
         if (!timeLeft.isVisible()) {
             timeLeft.setVisible(true);
@@ -166,6 +184,7 @@ public class ControlsView extends JFrame {
      * 
      * @param winner The color of the winning player.
      */
+    @Override
     public void handleWin(Colors winner) {
         // if the game is won, we display the winner and finish the game
         timeLeft.setText("The winner is " + winner + "!");
@@ -176,41 +195,57 @@ public class ControlsView extends JFrame {
     }
 
     /**
-     * Adds a turn to the history log displayed in the text area.
+     * Adds a turn to the history displayed in the list.
      * 
      * @param turn The string representation of the turn to be added.
      */
+    @Override
     public void addToHistory(String turn) {
-        textArea.append(turn);
+        history.append(turn);
+        historyList.ensureIndexIsVisible(history.getSize() - 1);
     }
 
     /**
-     * Removes the last turn from the history log displayed in the text area.
+     * Removes the last step from the history displayed in the list.
      */
+    @Override
     public void removeFromHistory() {
-        // we have to get the entire history
-        String entireTurn = textArea.getText();
-        String[] tokens = entireTurn.split("\\s+");
-        textArea.setText("");
-
-        // we split it into tokens and reconstruct it back excluding the last token
-        for (int i = 0; i < tokens.length - 1; ++i) {
-            // we also have to remove the trap if it has happend on the last turn
-            if (i == tokens.length - 2 && tokens[i + 1].contains("x")) {
-                break;
-            }
+        history.removeLastStep();
+    }
 
-            textArea.append(tokens[i] + " ");
+    /**
+     * Clears the history, the board is set up for another game.
+     */
+    @Override
+    public void initBoard() {
+        history.clear();
+    }
 
-            if (tokens[i + 1].matches("^[0-9]+[sg]$")) {
-                textArea.append("\n");
-            }
+    /**
+     * Takes the game back to the start of a clicked turn, once the player confirms it.
+     * 
+     * @param game  The GameController instance associated with this view.
+     * @param index The row of the clicked turn.
+     */
+    private void turnClicked(GameController game, int index) {
+        // the setup can't be played again and the game must still be running
+        if (!areFiguresSet || isGameFinished || index < 2) {
+            return;
         }
+
+        int answer = JOptionPane.showConfirmDialog(this,
+                "Take the game back to the start of turn " + history.headerAt(index) + "?", "History",
+                JOptionPane.YES_NO_OPTION);
+        if (answer == JOptionPane.YES_OPTION) {
+            game.serializer.rewind(index);
+        }
+        historyList.clearSelection();
     }
 
     /**
      * Changes the control buttons and enables/disables them based on game state.
      */
+    @Override
     public void changeControls() {
         // the game has started, we enable save and step back
         controls.setText("Finish turn");
@@ -218,4 +253,19 @@ public class ControlsView extends JFrame {
         save.setEnabled(true);
         stepBack.setEnabled(true);
     }
+
+    @Override
+    public void showBoard() {
+        setVisible(true);
+    }
+
+    /**
+     * Shows a message to the player in a dialog.
+     * 
+     * @param message The message for the player.
+     */
+    @Override
+    public void showMessage(String message) {
+        JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.INFORMATION_MESSAGE);
+    }
 }
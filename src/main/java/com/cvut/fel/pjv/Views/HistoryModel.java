@@ -0,0 +1,164 @@
+package com.cvut.fel.pjv.Views;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The HistoryModel class keeps the history of the game as a list of turns,
+ * one row per turn, each row being the turn header (e.g. "2g") and its steps.
+ * Appending text or removing the last step touches only the last rows, so the
+ * cost does not grow with the length of the game, and a list showing the
+ * model is told about the changed rows only.
+ */
+public class HistoryModel extends AbstractListModel<String> {
+    private final List<Turn> turns = new ArrayList<>();
+
+    /**
+     * One row of the history, the header and the steps of a turn.
+     */
+    private static class Turn {
+        private final String header;
+        private final List<String> steps = new ArrayList<>();
+        private String text;
+
+        private Turn(String header) {
+            this.header = header;
+        }
+
+        private String text() {
+            if (text == null) {
+                StringBuilder builder = new StringBuilder(header);
+                for (String step : steps) {
+                    builder.append(' ').append(step);
+                }
+                text = builder.toString();
+            }
+            return text;
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return turns.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return turns.get(index).text();
+    }
+
+    /**
+     * Appends text in the Arimaa notation, a turn header starts a new row.
+     *
+     * @param text the appended text, e.g. "2g " or "Ed2n ".
+     */
+    public void append(String text) {
+        int size = turns.size();
+        boolean lastChanged = false;
+
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            // we cut the text into tokens at the whitespace
+            while (start < length && Character.isWhitespace(text.charAt(start))) {
+                ++start;
+            }
+            int end = start;
+            while (end < length && !Character.isWhitespace(text.charAt(end))) {
+                ++end;
+            }
+            if (start == end) {
+                break;
+            }
+
+            String token = text.substring(start, end);
+            Turn last = turns.isEmpty() ? null : turns.get(turns.size() - 1);
+            if (isHeader(token)) {
+                // a repeated header of a turn without steps is the same turn
+                if (last == null || !last.steps.isEmpty() || !last.header.equals(token)) {
+                    turns.add(new Turn(token));
+                }
+            } else {
+                if (last == null) {
+                    last = new Turn("");
+                    turns.add(last);
+                }
+                last.steps.add(token);
+                last.text = null;
+                lastChanged |= turns.size() == size;
+            }
+            start = end;
+        }
+
+        if (lastChanged) {
+            fireContentsChanged(this, size - 1, size - 1);
+        }
+        if (turns.size() > size) {
+            fireIntervalAdded(this, size, turns.size() - 1);
+        }
+    }
+
+    /**
+     * Removes the last step, with the capture it caused.
+     */
+    public void removeLastStep() {
+        if (turns.isEmpty()) {
+            return;
+        }
+
+        int index = turns.size() - 1;
+        List<String> steps = turns.get(index).steps;
+        if (steps.isEmpty()) {
+            return;
+        }
+
+        // a capture is written after the step that caused it
+        String removed = steps.remove(steps.size() - 1);
+        if (removed.indexOf('x') >= 0 && !steps.isEmpty()) {
+            steps.remove(steps.size() - 1);
+        }
+        turns.get(index).text = null;
+        fireContentsChanged(this, index, index);
+    }
+
+    /**
+     * Removes the whole history.
+     */
+    public void clear() {
+        int size = turns.size();
+        if (size > 0) {
+            turns.clear();
+            fireIntervalRemoved(this, 0, size - 1);
+        }
+    }
+
+    /**
+     * Returns the header of a turn.
+     *
+     * @param index the row of the turn.
+     * @return the header, e.g. "2g".
+     */
+    public String headerAt(int index) {
+        return turns.get(index).header;
+    }
+
+    /**
+     * Checks if a token is a turn header, i.e. the turn number and the color.
+     *
+     * @param token the token.
+     * @return true if the token is a header, e.g. "12s".
+     */
+    static boolean isHeader(String token) {
+        int last = token.length() - 1;
+        if (last < 1 || "gswb".indexOf(token.charAt(last)) < 0) {
+            return false;
+        }
+        for (int i = 0; i < last; ++i) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -19,6 +19,8 @@ public class MainMenuView extends JFrame {
 
     public GameController game;
 
+    private JButton resumeGameButton;
+
     /**
      * Constructs a new MainMenuView instance with the specified game controller.
      * 
@@ -33,10 +35,11 @@ public class MainMenuView extends JFrame {
         this.game = game;
 
         JPanel panel = new JPanel();
-        panel.setLayout(new GridLayout(2, 1));
+        panel.setLayout(new GridLayout(3, 1));
 
         JButton newGameButton = new JButton("New Game");
         JButton loadGameButton = new JButton("Load Game");
+        this.resumeGameButton = new JButton("Resume Game");
 
         // the button to start a new game
         newGameButton.addActionListener(new ActionListener() {
@@ -68,9 +71,35 @@ public class MainMenuView extends JFrame {
             }
         });
 
+        // the button to resume the game that was not finished, e.g. because of a crash
+        resumeGameButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                File journal = game.serializer.resumableGame();
+                if (journal != null) {
+                    game.serializer.loadGame(journal);
+                }
+            }
+        });
+
         panel.add(newGameButton);
         panel.add(loadGameButton);
+        panel.add(resumeGameButton);
 
         add(panel);
     }
+
+    /**
+     * Shows or hides the menu, the resume button is enabled only if there is
+     * a game to resume.
+     * 
+     * @param visible true to show the menu.
+     */
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible) {
+            resumeGameButton.setEnabled(game.serializer.resumableGame() != null);
+        }
+        super.setVisible(visible);
+    }
 }
@@ -1,6 +1,8 @@
 package com.cvut.fel.pjv.Views;
 
 import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Engine.ParallelSearch;
+import com.cvut.fel.pjv.Engine.SearchEngine;
 
 import javax.swing.*;
 import java.awt.*;
@@ -31,10 +33,11 @@ public class NewGameView extends JFrame {
         this.game = game;
 
         JPanel panel = new JPanel();
-        panel.setLayout(new GridLayout(2, 1));
+        panel.setLayout(new GridLayout(3, 1));
 
         JButton vsPlayerButton = new JButton("VS Player");
         JButton vsComputerButton = new JButton("VS Computer");
+        JButton vsSearchButton = new JButton("VS Computer (search)");
 
         // button to choose option against real opponent
         vsPlayerButton.addActionListener(new ActionListener() {
@@ -57,8 +60,20 @@ public class NewGameView extends JFrame {
             }
         });
 
+        // button to chose option against AI opponent that searches for its turns
+        vsSearchButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // we start the game vs AI searching on all cores
+                game.createBoard(false);
+                game.setVsAI(new ParallelSearch(SearchEngine.DEFAULT_THINK_TIME, ParallelSearch.DEFAULT_THREADS));
+                setVisible(false);
+            }
+        });
+
         panel.add(vsPlayerButton);
         panel.add(vsComputerButton);
+        panel.add(vsSearchButton);
 
         add(panel);
     }
@@ -0,0 +1,88 @@
+package com.cvut.fel.pjv.Views;
+
+import com.cvut.fel.pjv.Models.Position;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The SpriteCache class holds the pictures of the twelve pieces, indexed by
+ * the piece code (see {@link Position#code}). The pictures are decoded only
+ * once, and scaled only when the size of the squares changes, so showing a
+ * piece never touches the resources again.
+ */
+public class SpriteCache {
+    private final BufferedImage[] originals = new BufferedImage[Position.PIECE_CODES];
+    private final BufferedImage[] sprites = new BufferedImage[Position.PIECE_CODES];
+    private int size;
+
+    /**
+     * Constructs a SpriteCache, decoding the pictures at their original size.
+     */
+    public SpriteCache() {
+        for (int code = 0; code < Position.PIECE_CODES; ++code) {
+            // the pictures are named by the color and the type ordinal, e.g. "10.png"
+            String path = "/PNG/Figures/" + Position.colorOf(code) + Position.typeOf(code) + ".png";
+            try (InputStream in = getClass().getResourceAsStream(path)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing picture " + path);
+                }
+                originals[code] = ImageIO.read(in);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read picture " + path, e);
+            }
+
+            sprites[code] = originals[code];
+        }
+        size = originals[0].getWidth();
+    }
+
+    /**
+     * Scales the pictures to a new size, nothing is done if the size did not change.
+     *
+     * @param size the width and height of the pictures in pixels.
+     * @return true if the pictures were scaled.
+     */
+    public boolean resize(int size) {
+        if (size == this.size || size <= 0) {
+            return false;
+        }
+        this.size = size;
+
+        for (int code = 0; code < Position.PIECE_CODES; ++code) {
+            BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = scaled.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(originals[code], 0, 0, size, size, null);
+            g.dispose();
+
+            sprites[code] = scaled;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of the pictures.
+     *
+     * @return the width and height in pixels.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the picture of a piece.
+     *
+     * @param code the piece code.
+     * @return the scaled picture.
+     */
+    public Image sprite(int code) {
+        return sprites[code];
+    }
+}
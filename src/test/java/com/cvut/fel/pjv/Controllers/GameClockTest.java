@@ -0,0 +1,54 @@
+package com.cvut.fel.pjv.Controllers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameClockTest {
+
+    private AtomicLong reported;
+    private GameClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        reported = new AtomicLong();
+        clock = new GameClock(reported::addAndGet, Runnable::run);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        clock.shutdown();
+    }
+
+    // we check that the reported milliseconds add up to the measured time
+    @Test
+    public void testReportsElapsedTime() throws InterruptedException {
+        long start = System.nanoTime();
+        clock.start();
+        Thread.sleep(350);
+        long total = reported.get() + clock.pause();
+        long measured = (System.nanoTime() - start) / 1_000_000L;
+
+        assertTrue(total >= 300, "reported " + total);
+        assertTrue(total <= measured, "reported " + total + ", measured " + measured);
+    }
+
+    // we check that the time spent paused is not counted
+    @Test
+    public void testPause() throws InterruptedException {
+        clock.start();
+        clock.pause();
+        long before = reported.get();
+        Thread.sleep(300);
+
+        assertTrue(clock.isPaused());
+        assertEquals(before, reported.get());
+
+        clock.resume();
+        assertFalse(clock.isPaused());
+        assertTrue(clock.pause() < 100);
+    }
+}
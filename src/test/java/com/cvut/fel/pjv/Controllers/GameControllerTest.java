@@ -1,6 +1,10 @@
 package com.cvut.fel.pjv.Controllers;
 
+import com.cvut.fel.pjv.Engine.Rules;
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.Turns;
 import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Position;
 import com.cvut.fel.pjv.Utilities.*;
 
 import org.junit.jupiter.api.Test;
@@ -50,16 +54,156 @@ public class GameControllerTest {
         assertNotEquals(initialBoardState, boardStateAfterAIMove);
     }
 
+    // we check that stepping back restores the board and the context of the turn
+    @Test
+    public void testStepBack() {
+        GameController gameController = new GameController(false, true);
+        gameController.createBoard(false);
+        gameController.beginGame();
+        long key = gameController.board.position.key;
+
+        gameController.setPieceTypeAtPosition(6, 0, 5, 0);
+        gameController.setPieceTypeAtPosition(5, 0, 4, 0);
+        assertEquals(2, gameController.turnCounter);
+
+        gameController.stepBack();
+        gameController.stepBack();
+        assertEquals(0, gameController.turnCounter);
+        assertEquals(key, gameController.board.position.key);
+        assertEquals(Rules.START, gameController.validate.context);
+        assertNotNull(gameController.board.pieceAt(6, 0));
+    }
+
+    // we check that replayed turns change only the model, skip illegal steps
+    // and are taken back if they can't be finished
+    @Test
+    public void testReplayTurn() {
+        GameController gameController = new GameController(false, true);
+        int[] updates = new int[1];
+        gameController.addListener(new GameListener() {
+            @Override
+            public void updateBoard() {
+                ++updates[0];
+            }
+        });
+        gameController.createBoard(false);
+        gameController.beginGame();
+        updates[0] = 0;
+
+        long turn = Turns.EMPTY;
+        turn = Turns.append(turn, Steps.step(Position.square(6, 3), Position.square(5, 3)));
+        turn = Turns.append(turn, Steps.step(Position.square(7, 0), Position.square(7, 1)));
+        turn = Turns.append(turn, Steps.step(Position.square(5, 3), Position.square(4, 3)));
+        assertEquals("2g Ed2n Ed3n ", gameController.replayTurn(turn));
+        assertEquals(Colors.SILVER, gameController.whoseTurn);
+        assertEquals(0, updates[0]);
+
+        // the pieces are shown only when asked for
+        assertNotNull(gameController.board.pieceAt(6, 3));
+        gameController.board.syncPieces();
+        assertNull(gameController.board.pieceAt(6, 3));
+        assertNotNull(gameController.board.pieceAt(4, 3));
+
+        long key = gameController.board.position.key;
+        long back = Turns.append(Turns.EMPTY, Steps.step(Position.square(1, 0), Position.square(2, 0)));
+        back = Turns.append(back, Steps.step(Position.square(2, 0), Position.square(1, 0)));
+        assertNull(gameController.replayTurn(back));
+        assertEquals(key, gameController.board.position.key);
+        assertEquals(Colors.SILVER, gameController.whoseTurn);
+    }
+
+    // we check that the game can be taken back to the start of an earlier turn
+    @Test
+    public void testRewind() {
+        GameController gameController = new GameController(false, true);
+        gameController.createBoard(false);
+        gameController.beginGame();
+
+        gameController.setPieceTypeAtPosition(6, 0, 5, 0);
+        gameController.setPieceTypeAtPosition(5, 0, 4, 0);
+        gameController.finishPlayerTurn();
+        long key = gameController.board.position.key;
+
+        gameController.setPieceTypeAtPosition(1, 0, 2, 0);
+        gameController.finishPlayerTurn();
+        gameController.setPieceTypeAtPosition(6, 7, 5, 7);
+
+        // the setup and the first turn of gold are kept
+        gameController.serializer.rewind(3);
+        assertEquals(key, gameController.board.position.key);
+        assertEquals(Colors.SILVER, gameController.whoseTurn);
+        assertEquals(3, gameController.serializer.history.size());
+        assertNotNull(gameController.board.pieceAt(4, 0));
+        assertNull(gameController.board.pieceAt(5, 7));
+        gameController.shutdown();
+    }
+
+    // we check that the AI plays again when the game is taken back to its turn
+    @Test
+    public void testRewindToAITurn() {
+        GameController gameController = new GameController(false, true);
+        gameController.createBoard(false);
+        gameController.setVsAI();
+        gameController.beginGame();
+
+        // the AI answers every turn of gold right away
+        gameController.setPieceTypeAtPosition(6, 0, 5, 0);
+        gameController.finishPlayerTurn();
+        assertEquals(Colors.GOLD, gameController.whoseTurn);
+        assertEquals(4, gameController.serializer.history.size());
+
+        // the first turn of gold is kept, the AI plays its turn again
+        gameController.serializer.rewind(3);
+        assertTrue(gameController.vsAI);
+        assertEquals(Colors.GOLD, gameController.whoseTurn);
+        assertEquals(4, gameController.serializer.history.size());
+        assertNotNull(gameController.board.pieceAt(5, 0));
+        gameController.shutdown();
+    }
+
+    // we check that whole games can be played without any views
+    @Test
+    public void testHeadlessGames() {
+        GameController gameController = new GameController(false, true);
+        Colors[] winner = new Colors[1];
+        gameController.addListener(new GameListener() {
+            @Override
+            public void handleWin(Colors color) {
+                winner[0] = color;
+            }
+        });
+        AI gold = new AI(gameController, gameController.board, Colors.GOLD);
+
+        for (int i = 0; i < 3; ++i) {
+            winner[0] = null;
+            gameController.createBoard(false);
+            gameController.beginGame();
+
+            // both sides play random turns until somebody wins
+            while (winner[0] == null) {
+                AI player = gameController.whoseTurn == Colors.GOLD ? gold : gameController.ai;
+                if (!player.makeTurn()) {
+                    break;
+                }
+                gameController.finishPlayerTurn();
+            }
+
+            assertNotNull(winner[0]);
+            assertFalse(gameController.running);
+        }
+        assertNull(gameController.boardView);
+    }
+
     // helper function to compare boards before and after AI turn
     private String boardToString(Board board) {
         StringBuilder boardOutput = new StringBuilder();
         for (int i = 0; i < 8; ++i) {
             for (int j = 0; j < 8; ++j) {
-                if (board.board[i][j] == null) {
+                if (board.pieceAt(i, j) == null) {
                     boardOutput.append("xx ");
                 } else {
-                    boardOutput.append(board.board[i][j].getColor().ordinal())
-                            .append(board.board[i][j].getType().ordinal()).append(" ");
+                    boardOutput.append(board.pieceAt(i, j).getColor().ordinal())
+                            .append(board.pieceAt(i, j).getType().ordinal()).append(" ");
                 }
             }
             boardOutput.append("\n");
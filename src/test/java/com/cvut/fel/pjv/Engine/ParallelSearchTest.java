@@ -0,0 +1,62 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTest {
+
+    private Position position;
+    private ParallelSearch search;
+
+    @BeforeEach
+    public void setUp() {
+        position = new Position();
+        position.put(Position.square(3, 0), Position.code(Colors.GOLD, Figures.RABBIT));
+        position.put(Position.square(7, 3), Position.code(Colors.GOLD, Figures.ELEPHANT));
+        position.put(Position.square(0, 7), Position.code(Colors.SILVER, Figures.RABBIT));
+        position.put(Position.square(1, 6), Position.code(Colors.SILVER, Figures.CAT));
+        search = new ParallelSearch(SearchEngine.DEFAULT_THINK_TIME, 4, new TranspositionTable(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        search.shutdown();
+    }
+
+    // we check that the workers together find the goal and count all their nodes
+    @Test
+    public void testFindsGoal() {
+        SearchResult result = search.search(position, Colors.GOLD.ordinal(), 5000, 2);
+
+        assertTrue(result.score > Evaluator.WIN_BOUND);
+        assertTrue(result.nodes > 0);
+        assertTrue(search.getTable().getStores() > 0);
+    }
+
+    // we check that a stopped search completes with a turn
+    @Test
+    public void testStop() {
+        var future = search.searchAsync(position, Colors.SILVER.ordinal(), 60000, SearchEngine.MAX_DEPTH);
+        search.stop();
+
+        SearchResult result = future.join();
+        assertNotEquals(Turns.EMPTY, result.turn);
+        assertTrue(result.millis < 60000);
+    }
+
+    // we check that the scaling report has a line for every measured number of threads
+    @Test
+    public void testScalingReport() {
+        String report = ParallelSearch.scalingReport(position, Colors.SILVER.ordinal(), 1, 3, 1);
+
+        // header and the runs with 1, 2 and 3 threads
+        assertEquals(4, report.lines().count());
+    }
+}
@@ -0,0 +1,172 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Piece;
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RulesTest {
+
+    private static final int GOLD = Colors.GOLD.ordinal();
+
+    private Board board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new Board();
+    }
+
+    // we check a push has to be finished by the pusher and can't be followed by a pull
+    @Test
+    public void testPush() {
+        board.setPiece(4, 3, new Piece(Figures.ELEPHANT, Colors.GOLD));
+        board.setPiece(3, 3, new Piece(Figures.RABBIT, Colors.SILVER));
+        Position position = board.position;
+
+        long context = Rules.play(position, Rules.START, GOLD, Position.square(3, 3), Position.square(2, 3));
+        assertNotEquals(Rules.ILLEGAL, context);
+        assertTrue(Rules.isPushPending(context));
+        assertFalse(Rules.canEndTurn(position, context, 0L));
+
+        // the elephant can't go anywhere else than to the square of the rabbit
+        assertEquals(Rules.ILLEGAL, Rules.validate(position, context, GOLD, Position.square(4, 3), Position.square(4, 4)));
+        assertEquals(Rules.PUSH_NOT_FINISHED,
+                Rules.rejection(position, context, GOLD, Position.square(4, 3), Position.square(4, 4)));
+
+        context = Rules.play(position, context, GOLD, Position.square(4, 3), Position.square(3, 3));
+        assertEquals(2, Rules.stepsUsed(context));
+        assertFalse(Rules.isPushPending(context));
+        assertFalse(Rules.canPull(context));
+        assertTrue(Rules.canEndTurn(position, context, 0L));
+    }
+
+    // we check rejected steps are told apart by the reason
+    @Test
+    public void testRejection() {
+        board.setPiece(4, 0, new Piece(Figures.RABBIT, Colors.GOLD));
+        board.setPiece(4, 1, new Piece(Figures.CAT, Colors.SILVER));
+        Position position = board.position;
+
+        int[][] steps = {
+                { Rules.NO_STEPS_LEFT, Position.square(4, 0), Position.square(3, 0) },
+                { Rules.BLOCKED, Position.square(4, 0), Position.square(4, 2) },
+                { Rules.NO_PIECE, Position.square(2, 2), Position.square(2, 3) },
+                { Rules.ENEMY_NOT_MOVABLE, Position.square(4, 1), Position.square(4, 2) },
+                { Rules.RABBIT_BACKWARDS, Position.square(4, 0), Position.square(5, 0) },
+                { Rules.FROZEN, Position.square(4, 0), Position.square(3, 0) },
+        };
+        for (int[] step : steps) {
+            long context = step[0] == Rules.NO_STEPS_LEFT ? Rules.MAX_STEPS : Rules.START;
+            assertEquals(Rules.ILLEGAL, Rules.validate(position, context, GOLD, step[1], step[2]));
+            assertEquals(step[0], Rules.rejection(position, context, GOLD, step[1], step[2]));
+        }
+    }
+
+    // we check a weaker enemy can follow into the square we left, but a stronger one can't
+    @Test
+    public void testPull() {
+        board.setPiece(4, 3, new Piece(Figures.HORSE, Colors.GOLD));
+        board.setPiece(3, 3, new Piece(Figures.DOG, Colors.SILVER));
+        board.setPiece(4, 2, new Piece(Figures.CAMEL, Colors.SILVER));
+        board.setPiece(4, 4, new Piece(Figures.RABBIT, Colors.GOLD));
+        Position position = board.position;
+
+        long context = Rules.play(position, Rules.START, GOLD, Position.square(4, 3), Position.square(5, 3));
+        assertTrue(Rules.canPull(context));
+
+        assertEquals(Rules.ILLEGAL, Rules.validate(position, context, GOLD, Position.square(4, 2), Position.square(4, 3)));
+        long pulled = Rules.validate(position, context, GOLD, Position.square(3, 3), Position.square(4, 3));
+        assertEquals(2, Rules.stepsUsed(pulled));
+        assertFalse(Rules.canPull(pulled));
+    }
+
+    // we check the rules keep no state, the same call gives the same answer in any order
+    @Test
+    public void testStateless() {
+        board.initBoard();
+        Position position = board.position;
+        int from = Position.square(6, 0);
+        int to = Position.square(5, 0);
+
+        long first = Rules.validate(position, Rules.START, GOLD, from, to);
+        Rules.validate(position, first, GOLD, Position.square(5, 0), Position.square(4, 0));
+        assertEquals(first, Rules.validate(position, Rules.START, GOLD, from, to));
+        assertEquals(Rules.ILLEGAL, Rules.validate(position, 4, GOLD, from, to));
+    }
+
+    // we check a captured piece is recorded in the context and can be put back
+    @Test
+    public void testCapture() {
+        board.setPiece(2, 2, new Piece(Figures.CAT, Colors.GOLD));
+        board.setPiece(3, 2, new Piece(Figures.RABBIT, Colors.GOLD));
+        Position position = board.position;
+        long key = position.key;
+
+        long context = Rules.play(position, Rules.START, GOLD, Position.square(3, 2), Position.square(3, 1));
+        int capture = Rules.capture(context);
+        assertEquals(Position.square(2, 2), capture & 63);
+        assertEquals(Position.code(Colors.GOLD, Figures.CAT), capture >>> 6);
+
+        position.undoStep(Position.square(3, 2), Position.square(3, 1), capture);
+        assertEquals(key, position.key);
+    }
+
+    // we check the rules accept exactly the first steps of the moves of the generator,
+    // and the quick check for any move agrees with it
+    @Test
+    public void testAgreesWithGenerator() {
+        Random random = new Random(7);
+        StepGenerator generator = new StepGenerator();
+        Position position = new Position();
+
+        for (int round = 0; round < 200; ++round) {
+            position.clear();
+            for (int code = 0; code < Position.PIECE_CODES; ++code) {
+                for (int i = 0; i < 2; ++i) {
+                    int sq = random.nextInt(Position.SQUARES);
+                    if (position.pieceAt(sq) == Position.EMPTY && (Position.TRAPS & (1L << sq)) == 0) {
+                        position.put(sq, code);
+                    }
+                }
+            }
+
+            for (int color = 0; color < 2; ++color) {
+                int count = generator.generate(position, color, 4);
+                assertEquals(count > 0, StepGenerator.hasMove(position, color));
+                long[] firstSteps = new long[Position.SQUARES];
+                for (int i = 0; i < count; ++i) {
+                    int move = generator.moves[i];
+                    int step = Steps.first(move);
+                    firstSteps[Steps.from(step)] |= 1L << Steps.to(step);
+
+                    // the whole move is legal step by step
+                    long context = Rules.validate(position, Rules.START, color, Steps.from(step), Steps.to(step));
+                    assertNotEquals(Rules.ILLEGAL, context);
+                    if (Steps.length(move) == 2) {
+                        Position copy = new Position();
+                        copy.copyFrom(position);
+                        copy.move(Steps.from(step), Steps.to(step));
+                        int second = Steps.second(move);
+                        assertNotEquals(Rules.ILLEGAL,
+                                Rules.validate(copy, context, color, Steps.from(second), Steps.to(second)));
+                    }
+                }
+
+                for (int from = 0; from < Position.SQUARES; ++from) {
+                    for (int to = 0; to < Position.SQUARES; ++to) {
+                        boolean legal = Rules.validate(position, Rules.START, color, from, to) != Rules.ILLEGAL;
+                        assertEquals((firstSteps[from] & (1L << to)) != 0, legal);
+                    }
+                }
+            }
+        }
+    }
+}
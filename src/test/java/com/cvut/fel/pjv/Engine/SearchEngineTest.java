@@ -0,0 +1,78 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchEngineTest {
+
+    private Position position;
+    private SearchEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        position = new Position();
+        engine = new SearchEngine(SearchEngine.DEFAULT_THINK_TIME);
+    }
+
+    // we check that the engine finds the rabbit run to the goal
+    @Test
+    public void testFindsGoal() {
+        position.put(Position.square(3, 0), Position.code(Colors.GOLD, Figures.RABBIT));
+        position.put(Position.square(0, 7), Position.code(Colors.SILVER, Figures.RABBIT));
+        position.put(Position.square(1, 6), Position.code(Colors.SILVER, Figures.CAT));
+
+        SearchResult result = engine.search(position, Colors.GOLD.ordinal(), 5000, 2);
+
+        assertTrue(result.score > Evaluator.WIN_BOUND);
+        Position copy = new Position();
+        copy.copyFrom(position);
+        for (int i = 0; i < Turns.length(result.turn); ++i) {
+            int step = Turns.step(result.turn, i);
+            copy.step(Steps.from(step), Steps.to(step));
+        }
+        assertEquals(Colors.GOLD.ordinal(), Evaluator.winner(copy, Colors.GOLD.ordinal()));
+    }
+
+    // we check that the engine stops in time and still returns a turn
+    @Test
+    public void testRespectsTimeBudget() {
+        position.put(Position.square(6, 0), Position.code(Colors.GOLD, Figures.RABBIT));
+        position.put(Position.square(7, 3), Position.code(Colors.GOLD, Figures.ELEPHANT));
+        position.put(Position.square(6, 4), Position.code(Colors.GOLD, Figures.HORSE));
+        position.put(Position.square(1, 7), Position.code(Colors.SILVER, Figures.RABBIT));
+        position.put(Position.square(0, 4), Position.code(Colors.SILVER, Figures.ELEPHANT));
+        position.put(Position.square(1, 3), Position.code(Colors.SILVER, Figures.CAMEL));
+        long key = position.hash();
+
+        SearchResult result = engine.search(position, Colors.GOLD.ordinal(), 300, SearchEngine.MAX_DEPTH);
+
+        assertNotEquals(Turns.EMPTY, result.turn);
+        assertTrue(result.nodes > 0);
+        assertTrue(result.millis < 2000);
+        assertEquals(key, position.hash());
+    }
+
+    // we check that a stop coming after the turn was asked for, but before the search
+    // started, is not lost
+    @Test
+    public void testStopBeforeSearch() {
+        position.put(Position.square(6, 0), Position.code(Colors.GOLD, Figures.RABBIT));
+        position.put(Position.square(7, 3), Position.code(Colors.GOLD, Figures.ELEPHANT));
+        position.put(Position.square(1, 7), Position.code(Colors.SILVER, Figures.RABBIT));
+        position.put(Position.square(0, 4), Position.code(Colors.SILVER, Figures.ELEPHANT));
+        engine = new SearchEngine(60_000);
+
+        engine.reset();
+        engine.stop();
+        long turn = engine.chooseTurn(position, Colors.GOLD.ordinal());
+
+        assertNotEquals(Turns.EMPTY, turn);
+        assertTrue(engine.lastResult.millis < 2000);
+    }
+}
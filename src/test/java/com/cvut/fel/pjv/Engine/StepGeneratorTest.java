@@ -0,0 +1,127 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Piece;
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+import com.cvut.fel.pjv.Utilities.ValidationHelper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StepGeneratorTest {
+
+    @Mock
+    private GameController game;
+
+    private Board board;
+    private StepGenerator generator;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        board = new Board();
+        generator = new StepGenerator();
+    }
+
+    // we check that only the figures in front of the rabbits can move at the start
+    @Test
+    public void testInitialPosition() {
+        board.initBoard();
+        int count = generator.generate(board.position, Colors.GOLD.ordinal(), 4);
+        assertEquals(8, count);
+        for (int i = 0; i < count; ++i) {
+            assertEquals(1, Steps.length(generator.moves[i]));
+        }
+    }
+
+    // we check simple steps, pushes and pulls of an elephant next to an enemy rabbit
+    @Test
+    public void testPushAndPull() {
+        board.setPiece(4, 3, new Piece(Figures.ELEPHANT, Colors.GOLD));
+        board.setPiece(3, 3, new Piece(Figures.RABBIT, Colors.SILVER));
+
+        int count = generator.generate(board.position, Colors.GOLD.ordinal(), 4);
+        int pairs = 0;
+        for (int i = 0; i < count; ++i) {
+            pairs += Steps.length(generator.moves[i]) - 1;
+        }
+        assertEquals(9, count);
+        assertEquals(6, pairs);
+
+        // with a single step left, only simple steps are possible
+        assertEquals(3, generator.generate(board.position, Colors.GOLD.ordinal(), 1));
+    }
+
+    // we check that frozen pieces and rabbits moving backwards are not generated
+    @Test
+    public void testFrozenAndRabbits() {
+        board.setPiece(3, 3, new Piece(Figures.RABBIT, Colors.GOLD));
+        board.setPiece(3, 4, new Piece(Figures.CAT, Colors.SILVER));
+        assertEquals(0, generator.generate(board.position, Colors.GOLD.ordinal(), 4));
+
+        // the friendly dog unfreezes the rabbit, which can go north or west, but not south
+        board.setPiece(4, 3, new Piece(Figures.DOG, Colors.GOLD));
+        int count = generator.generate(board.position, Colors.GOLD.ordinal(), 4);
+        int rabbitSteps = 0;
+        for (int i = 0; i < count; ++i) {
+            if (Steps.from(generator.moves[i]) == Position.square(3, 3)) {
+                rabbitSteps++;
+            }
+        }
+        assertEquals(2, rabbitSteps);
+    }
+
+    // we check that every generated simple step is accepted by the validator and nothing is missing
+    @Test
+    public void testMatchesValidator() {
+        board.initBoard();
+        board.movePiece(6, 3, 4, 3);
+        board.movePiece(1, 4, 3, 3);
+        board.movePiece(1, 3, 3, 4);
+
+        ValidationHelper validator = new ValidationHelper(game, board);
+        int count = generator.generate(board.position, Colors.GOLD.ordinal(), 1);
+
+        int valid = 0;
+        for (int from = 0; from < 64; ++from) {
+            Piece piece = board.pieceAt(from >> 3, from & 7);
+            if (piece == null || piece.getColor() != Colors.GOLD) {
+                continue;
+            }
+            for (int to = 0; to < 64; ++to) {
+                if (validator.checkIfMoveValid(new int[] { from >> 3, from & 7 }, new int[] { to >> 3, to & 7 },
+                        Colors.GOLD, 1, true)) {
+                    valid++;
+                    boolean generated = false;
+                    for (int i = 0; i < count; ++i) {
+                        generated |= generator.moves[i] == Steps.step(from, to);
+                    }
+                    assertTrue(generated);
+                }
+            }
+        }
+        assertEquals(valid, count);
+    }
+
+    // we check that a side which can only push still has a move, and a frozen one has none
+    @Test
+    public void testHasMove() {
+        board.setPiece(0, 0, new Piece(Figures.ELEPHANT, Colors.GOLD));
+        board.setPiece(0, 1, new Piece(Figures.CAT, Colors.SILVER));
+        board.setPiece(1, 0, new Piece(Figures.CAT, Colors.SILVER));
+        assertTrue(StepGenerator.hasMove(board.position, Colors.GOLD.ordinal()));
+
+        board.clearBoard();
+        board.setPiece(7, 0, new Piece(Figures.RABBIT, Colors.GOLD));
+        board.setPiece(6, 0, new Piece(Figures.ELEPHANT, Colors.SILVER));
+        assertFalse(StepGenerator.hasMove(board.position, Colors.GOLD.ordinal()));
+        assertEquals(0, generator.generate(board.position, Colors.GOLD.ordinal(), 4));
+    }
+}
@@ -0,0 +1,68 @@
+package com.cvut.fel.pjv.Engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    private TranspositionTable table;
+    private long[] entry;
+
+    @BeforeEach
+    public void setUp() {
+        table = new TranspositionTable(1);
+        entry = new long[2];
+    }
+
+    // we check that a stored entry is found again with all its fields
+    @Test
+    public void testStoreAndProbe() {
+        long turn = Turns.append(Turns.EMPTY, Steps.step(51, 43));
+        table.store(0x1234_5678_9ABC_DEF0L, 3, -250, TranspositionTable.LOWER, turn);
+
+        assertTrue(table.probe(0x1234_5678_9ABC_DEF0L, entry));
+        assertEquals(3, TranspositionTable.depth(entry[0]));
+        assertEquals(-250, TranspositionTable.score(entry[0]));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry[0]));
+        assertEquals(turn, entry[1]);
+
+        assertFalse(table.probe(0x0FED_CBA9_8765_4321L, entry));
+        assertEquals(0.5, table.getHitRate());
+    }
+
+    // we check that the empty table does not report the empty key as found
+    @Test
+    public void testEmptyTable() {
+        assertFalse(table.probe(0L, entry));
+    }
+
+    // we check that a bucket keeps the deeper entry of the current search
+    @Test
+    public void testReplacement() {
+        // keys with the same low bits fall into the same bucket
+        long stride = (long) table.capacity() << 32;
+        table.store(1L, 5, 10, TranspositionTable.EXACT, Turns.EMPTY);
+        table.store(1L + stride, 1, 20, TranspositionTable.EXACT, Turns.EMPTY);
+        table.store(1L + 2 * stride, 2, 30, TranspositionTable.EXACT, Turns.EMPTY);
+
+        assertTrue(table.probe(1L, entry));
+        assertFalse(table.probe(1L + stride, entry));
+        assertTrue(table.probe(1L + 2 * stride, entry));
+
+        // after a new search, the old entries are replaced first even when deeper
+        table.newSearch();
+        table.store(1L + 3 * stride, 1, 40, TranspositionTable.EXACT, Turns.EMPTY);
+        assertTrue(table.probe(1L + 3 * stride, entry));
+    }
+
+    // we check that mate scores are stored relative to the node
+    @Test
+    public void testWinScores() {
+        int score = Evaluator.WIN - 5;
+        int stored = TranspositionTable.toTable(score, 3);
+        assertEquals(score + 2, TranspositionTable.fromTable(stored, 1));
+        assertEquals(100, TranspositionTable.fromTable(TranspositionTable.toTable(100, 3), 1));
+    }
+}
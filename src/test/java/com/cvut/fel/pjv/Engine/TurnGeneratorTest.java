@@ -0,0 +1,100 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Piece;
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TurnGeneratorTest {
+
+    private Board board;
+    private TurnGenerator generator;
+
+    @BeforeEach
+    public void setUp() {
+        board = new Board();
+        generator = new TurnGenerator();
+    }
+
+    // we check the distinct turns against all step orders enumerated without any pruning
+    @Test
+    public void testMatchesBruteForce() {
+        board.initBoard();
+        board.movePiece(6, 3, 4, 3);
+        board.movePiece(1, 4, 3, 3);
+
+        for (Colors color : Colors.values()) {
+            Set<Long> expected = new HashSet<>();
+            bruteForce(board.position, color.ordinal(), 0, expected);
+            expected.remove(board.position.hash());
+
+            assertEquals(expected.size(), generator.generate(board.position, color.ordinal()));
+        }
+    }
+
+    // we check that every generated turn leads to a different position than the others and the start
+    @Test
+    public void testTurnsAreDistinct() {
+        board.initBoard();
+        long start = board.position.hash();
+        int count = generator.generate(board.position, Colors.GOLD.ordinal());
+
+        Set<Long> seen = new HashSet<>();
+        Position copy = new Position();
+        for (int i = 0; i < count; ++i) {
+            long turn = generator.turns[i];
+            copy.copyFrom(board.position);
+            for (int j = 0; j < Turns.length(turn); ++j) {
+                int step = Turns.step(turn, j);
+                copy.step(Steps.from(step), Steps.to(step));
+            }
+            assertNotEquals(start, copy.hash());
+            assertTrue(seen.add(copy.hash()));
+        }
+
+        // the generator has to leave the position as it was
+        assertEquals(start, board.position.hash());
+    }
+
+    // we check that a piece walking into a trap alone gives a single turn without it
+    @Test
+    public void testCaptureInTrap() {
+        board.setPiece(3, 2, new Piece(Figures.CAT, Colors.GOLD));
+        generator.generate(board.position, Colors.GOLD.ordinal());
+
+        long turn = generator.turns[0];
+        assertEquals(1, Turns.length(turn));
+        assertEquals("Cc5n", Turns.notation(board.position, turn));
+    }
+
+    private void bruteForce(Position position, int color, int used, Set<Long> ends) {
+        StepGenerator steps = new StepGenerator();
+        int count = steps.generate(position, color, Turns.MAX_STEPS - used);
+        for (int i = 0; i < count; ++i) {
+            int move = steps.moves[i];
+            int first = Steps.first(move);
+            int second = Steps.second(move);
+            boolean pair = Steps.length(move) == 2;
+
+            int firstCapture = position.step(Steps.from(first), Steps.to(first));
+            int secondCapture = pair ? position.step(Steps.from(second), Steps.to(second)) : Position.NO_CAPTURE;
+
+            ends.add(position.hash());
+            bruteForce(position, color, used + Steps.length(move), ends);
+
+            if (pair) {
+                position.undoStep(Steps.from(second), Steps.to(second), secondCapture);
+            }
+            position.undoStep(Steps.from(first), Steps.to(first), firstCapture);
+        }
+    }
+}
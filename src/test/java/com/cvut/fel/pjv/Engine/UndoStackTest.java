@@ -0,0 +1,55 @@
+package com.cvut.fel.pjv.Engine;
+
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Piece;
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UndoStackTest {
+
+    // we check every field survives packing into one entry
+    @Test
+    public void testEncode() {
+        long entry = UndoStack.encode(63, 55, (11 << 6) | 45, (1L << 33) - 1, UndoStack.MAX_MARK);
+        assertTrue(entry > 0);
+        assertEquals(63, UndoStack.from(entry));
+        assertEquals(55, UndoStack.to(entry));
+        assertEquals((11 << 6) | 45, UndoStack.capture(entry));
+        assertEquals((1L << 33) - 1, UndoStack.context(entry));
+        assertEquals(UndoStack.MAX_MARK, UndoStack.mark(entry));
+
+        assertEquals(Position.NO_CAPTURE, UndoStack.capture(UndoStack.encode(0, 1, Position.NO_CAPTURE, 0, 0)));
+    }
+
+    // we check a push with a capture is taken back to the exact starting position
+    @Test
+    public void testMakeUnmake() {
+        Board board = new Board();
+        board.setPiece(3, 1, new Piece(Figures.ELEPHANT, Colors.GOLD));
+        board.setPiece(2, 2, new Piece(Figures.CAT, Colors.SILVER));
+        board.setPiece(2, 1, new Piece(Figures.DOG, Colors.SILVER));
+        Position position = board.position;
+        long key = position.key;
+        int gold = Colors.GOLD.ordinal();
+
+        UndoStack undo = new UndoStack();
+        long context = undo.make(position, Rules.START, gold, Position.square(2, 1), Position.square(1, 1));
+        context = undo.make(position, context, gold, Position.square(3, 1), Position.square(2, 1));
+        assertEquals(2, undo.size());
+
+        // the cat was left alone on the trap
+        assertEquals(Position.EMPTY, position.pieceAt(Position.square(2, 2)));
+        assertEquals(Rules.ILLEGAL, undo.make(position, context, gold, Position.square(0, 0), Position.square(0, 1)));
+        assertEquals(2, undo.size());
+
+        assertTrue(Rules.isPushPending(undo.unmake(position)));
+        assertEquals(Rules.START, undo.unmake(position));
+        assertEquals(0, undo.size());
+        assertEquals(key, position.key);
+    }
+}
@@ -0,0 +1,174 @@
+package com.cvut.fel.pjv.Models;
+
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionTest {
+
+    private Board board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new Board();
+        board.initBoard();
+    }
+
+    // we check if the bitboards hold the same pieces as the array after initialization
+    @Test
+    public void testInitBoardMatchesArray() {
+        Position position = board.position;
+        for (int i = 0; i < 8; ++i) {
+            for (int j = 0; j < 8; ++j) {
+                int expected = board.pieceAt(i, j) == null ? Position.EMPTY : board.pieceAt(i, j).getCode();
+                assertEquals(expected, position.pieceAt(Position.square(i, j)));
+            }
+        }
+        assertEquals(32, Long.bitCount(position.occupied));
+        assertEquals(16, Long.bitCount(position.occupancy[Colors.GOLD.ordinal()]));
+        assertEquals(8, Long.bitCount(position.pieces[Position.code(Colors.SILVER, Figures.RABBIT)]));
+    }
+
+    // we check if moving and removing pieces keeps both representations in sync
+    @Test
+    public void testMoveAndRemove() {
+        board.movePiece(6, 0, 5, 0);
+        assertNull(board.pieceAt(6, 0));
+        assertEquals(Position.code(Colors.GOLD, Figures.DOG), board.position.pieceAt(Position.square(5, 0)));
+        assertEquals(Position.EMPTY, board.position.pieceAt(Position.square(6, 0)));
+
+        Piece removed = board.removePiece(5, 0);
+        assertEquals(Figures.DOG, removed.getType());
+        assertEquals(31, Long.bitCount(board.position.occupied));
+    }
+
+    // we check if the pieces of a whole array put into the board are picked up by the bitboards
+    @Test
+    public void testSetBoardPicksUpArray() {
+        Piece[][] pieces = new Piece[8][8];
+        for (int i = 0; i < 8; ++i) {
+            for (int j = 0; j < 8; ++j) {
+                pieces[i][j] = board.pieceAt(i, j);
+            }
+        }
+        pieces[3][3] = new Piece(Figures.CAMEL, Colors.SILVER);
+        pieces[0][0] = null;
+
+        board.setBoard(pieces);
+        Position position = board.position;
+        assertEquals(Position.code(Colors.SILVER, Figures.CAMEL), position.pieceAt(Position.square(3, 3)));
+        assertEquals(Position.EMPTY, position.pieceAt(0));
+    }
+
+    // we check freezing both for a single square and for the whole color
+    @Test
+    public void testFrozen() {
+        board.clearBoard();
+        board.setPiece(3, 3, new Piece(Figures.RABBIT, Colors.GOLD));
+        board.setPiece(3, 4, new Piece(Figures.CAT, Colors.SILVER));
+
+        assertTrue(board.position.isFrozen(Position.square(3, 3)));
+        assertFalse(board.position.isFrozen(Position.square(3, 4)));
+        assertEquals(1L << Position.square(3, 3), board.position.frozen(Colors.GOLD.ordinal()));
+
+        // a friendly piece nearby unfreezes the rabbit
+        board.setPiece(4, 3, new Piece(Figures.RABBIT, Colors.GOLD));
+        assertFalse(board.position.isFrozen(Position.square(3, 3)));
+        assertEquals(0L, board.position.frozen(Colors.GOLD.ordinal()));
+    }
+
+    // we check that the frozen pieces and guarded traps follow random steps and their undos
+    @Test
+    public void testIncrementalMasks() {
+        Random random = new Random(13);
+        Position position = board.position;
+        int[] froms = new int[200];
+        int[] tos = new int[200];
+        int[] captures = new int[200];
+
+        int made = 0;
+        while (made < froms.length) {
+            int from = random.nextInt(Position.SQUARES);
+            long targets = Position.NEIGHBOURS[from] & ~position.occupied;
+            if (position.pieceAt(from) == Position.EMPTY || targets == 0) {
+                continue;
+            }
+
+            int to = Long.numberOfTrailingZeros(targets);
+            froms[made] = from;
+            tos[made] = to;
+            captures[made] = position.step(from, to);
+            ++made;
+            assertMasks(position);
+        }
+
+        while (made > 0) {
+            --made;
+            position.undoStep(froms[made], tos[made], captures[made]);
+            assertMasks(position);
+        }
+    }
+
+    private static void assertMasks(Position position) {
+        for (int color = 0; color < 2; ++color) {
+            assertEquals(position.computeFrozen(color), position.frozen(color));
+            assertEquals(Position.TRAPS & Position.neighbours(position.occupancy[color]),
+                    position.guardedTraps[color]);
+        }
+    }
+
+    // we check that neighbours do not wrap around the edges of the board
+    @Test
+    public void testNeighboursOnEdges() {
+        assertEquals((1L << 1) | (1L << 8), Position.NEIGHBOURS[0]);
+        assertEquals((1L << 6) | (1L << 15), Position.NEIGHBOURS[7]);
+        assertEquals(4, Long.bitCount(Position.NEIGHBOURS[Position.square(3, 3)]));
+    }
+
+    // we check that the incremental key matches the key computed from scratch
+    @Test
+    public void testZobristKeyIsIncremental() {
+        board.movePiece(6, 3, 5, 3);
+        board.movePiece(1, 4, 2, 4);
+        board.removePiece(7, 0);
+
+        Position fresh = new Position();
+        for (int sq = 0; sq < 64; ++sq) {
+            if (board.position.pieceAt(sq) != Position.EMPTY) {
+                fresh.put(sq, board.position.pieceAt(sq));
+            }
+        }
+        assertEquals(fresh.key, board.position.key);
+
+        // moving the piece back gives back the same placement key
+        long before = board.position.hash();
+        board.movePiece(5, 3, 4, 3);
+        board.movePiece(4, 3, 5, 3);
+        assertEquals(before, board.position.hash());
+    }
+
+    // we check that the side to move and the steps used change the key, but not the placement key
+    @Test
+    public void testZobristSideAndSteps() {
+        long key = board.position.key;
+        long placement = board.position.hash();
+
+        board.position.setStepsUsed(2);
+        assertNotEquals(key, board.position.key);
+        board.position.setSide(Colors.SILVER.ordinal());
+        assertEquals(placement, board.position.hash());
+
+        board.position.setStepsUsed(0);
+        board.position.setSide(Colors.GOLD.ordinal());
+        assertEquals(key, board.position.key);
+
+        board.clearBoard();
+        assertEquals(0L, board.position.hash());
+    }
+}
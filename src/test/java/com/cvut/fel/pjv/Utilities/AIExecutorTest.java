@@ -0,0 +1,94 @@
+package com.cvut.fel.pjv.Utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Engine.Strategy;
+import com.cvut.fel.pjv.Engine.Turns;
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Position;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AIExecutorTest {
+
+    private AIExecutor executor;
+    private CountDownLatch started;
+    private CountDownLatch release;
+
+    @BeforeEach
+    public void setUp() {
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+
+        // the strategy waits until the test lets it finish
+        Strategy strategy = new Strategy() {
+            @Override
+            public long chooseTurn(Position position, int color) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 42L;
+            }
+
+            @Override
+            public String getName() {
+                return "TEST";
+            }
+        };
+
+        AI ai = new AI(mock(GameController.class), mock(Board.class), Colors.SILVER, strategy);
+        executor = new AIExecutor(ai, Runnable::run, false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    // we check that the turn is computed in the background and delivered afterwards
+    @Test
+    public void testDeliversTurn() throws InterruptedException {
+        AtomicLong delivered = new AtomicLong(Turns.EMPTY);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.submit(new Position(), turn -> {
+            delivered.set(turn);
+            done.countDown();
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.isThinking());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(42L, delivered.get());
+        assertFalse(executor.isThinking());
+    }
+
+    // we check that a cancelled turn is never delivered
+    @Test
+    public void testCancel() throws InterruptedException {
+        AtomicLong delivered = new AtomicLong(Turns.EMPTY);
+
+        executor.submit(new Position(), delivered::set);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        executor.cancel();
+        release.countDown();
+
+        assertFalse(executor.isThinking());
+        Thread.sleep(100);
+        assertEquals(Turns.EMPTY, delivered.get());
+    }
+}
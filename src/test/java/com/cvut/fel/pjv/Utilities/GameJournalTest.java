@@ -0,0 +1,82 @@
+package com.cvut.fel.pjv.Utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GameJournalTest {
+
+    @TempDir
+    Path folder;
+
+    // we check the turns are forced to the disk in batches
+    @Test
+    public void testSyncPolicy() throws IOException {
+        GameJournal journal = new GameJournal(folder, 3, 60_000);
+        journal.begin("1g Ra1\n1s ra8\n");
+        assertEquals(0, journal.unsynced());
+
+        journal.append("2g Ra1n\n");
+        journal.append("2s ra8s\n");
+        assertEquals(2, journal.unsynced());
+        journal.append("3g Ra2n\n");
+        assertEquals(0, journal.unsynced());
+
+        // a new journal replaces the old one
+        Path first = journal.latest();
+        journal.begin("1g Ra1\n1s ra8\n");
+        assertNotEquals(first, journal.latest());
+        assertFalse(Files.exists(first));
+
+        journal.discard();
+        assertNull(journal.latest());
+    }
+
+    // we check a game that was never closed is resumed with all its turns and its clock
+    @Test
+    public void testResume() throws IOException {
+        GameController played = new GameController(false, true);
+        played.serializer.journal = new GameJournal(folder);
+        played.createBoard(false);
+        played.beginGame();
+
+        // gold and silver play a turn each, gold one more
+        played.setPieceTypeAtPosition(6, 0, 5, 0);
+        played.setPieceTypeAtPosition(5, 0, 4, 0);
+        played.finishPlayerTurn();
+        played.setPieceTypeAtPosition(1, 0, 2, 0);
+        played.finishPlayerTurn();
+        played.setPieceTypeAtPosition(6, 7, 5, 7);
+        played.finishPlayerTurn();
+
+        // the application crashes once the writer is done, the journal is not closed
+        played.serializer.journal.drain();
+        File journal = new GameJournal(folder).latest().toFile();
+
+        GameController resumed = new GameController(false, true);
+        resumed.serializer.journal = new GameJournal(folder);
+        assertEquals(journal, resumed.serializer.resumableGame());
+        resumed.serializer.loadGame(journal);
+
+        assertEquals(played.board.position.key, resumed.board.position.key);
+        assertEquals(played.whoseTurn, resumed.whoseTurn);
+        assertEquals(played.reserveGold, resumed.reserveGold);
+        assertEquals(played.reserveSilver, resumed.reserveSilver);
+        assertEquals(played.serializer.history.size(), resumed.serializer.history.size());
+
+        // the resumed game goes on in its own journal
+        assertTrue(resumed.serializer.journal.isOpen());
+        assertFalse(journal.exists());
+
+        played.shutdown();
+        resumed.shutdown();
+    }
+}
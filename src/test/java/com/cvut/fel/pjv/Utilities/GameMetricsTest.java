@@ -0,0 +1,73 @@
+package com.cvut.fel.pjv.Utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GameMetricsTest {
+
+    @TempDir
+    Path folder;
+
+    // we check the steps, the rejections and the turns are counted and can be read over JMX
+    @Test
+    public void testCountersOverJmx() throws JMException {
+        GameController gameController = new GameController(false, true);
+        gameController.createBoard(false);
+        gameController.beginGame();
+
+        // a rabbit can't step onto its neighbour, then it steps forward
+        gameController.setPieceTypeAtPosition(7, 0, 6, 0);
+        gameController.setPieceTypeAtPosition(6, 0, 5, 0);
+        gameController.finishPlayerTurn();
+
+        GameMetrics metrics = gameController.metrics;
+        assertEquals(2, metrics.getStepsValidated());
+        assertEquals(1, metrics.getRejections().get("blocked"));
+        assertEquals(0, metrics.getRejections().get("frozen"));
+        assertEquals(1, metrics.getTurnLatency().getCount());
+
+        metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME);
+        assertEquals(2L, server.getAttribute(name, "StepsValidated"));
+        assertEquals(1L, ((CompositeData) server.getAttribute(name, "TurnLatency")).get("count"));
+
+        gameController.shutdown();
+        assertFalse(server.isRegistered(name));
+    }
+
+    // we check the metrics are appended to the dump file, the last time when they are shut down
+    @Test
+    public void testDumps() throws IOException {
+        GameMetrics metrics = new GameMetrics();
+        metrics.startDumps(folder, GameMetrics.DEFAULT_DUMP_MILLIS);
+        metrics.stepValidated();
+        metrics.clockTicked(100, 105_000_000);
+        metrics.dump();
+        metrics.shutdown();
+
+        try (var files = Files.list(folder)) {
+            List<Path> dumps = files.toList();
+            assertEquals(1, dumps.size());
+            List<String> lines = Files.readAllLines(dumps.get(0));
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).contains("steps=1 "));
+            assertTrue(lines.get(1).contains("clockDrift=5ms"));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.cvut.fel.pjv.Utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Models.Position;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GameRecordConverterTest {
+
+    @TempDir
+    Path folder;
+
+    // we check every step gets its own byte and none of them ends a turn
+    @Test
+    public void testStepBytes() throws IOException {
+        boolean[] used = new boolean[256];
+        for (int from = 0; from < Position.SQUARES; ++from) {
+            long neighbours = Position.NEIGHBOURS[from];
+            while (neighbours != 0) {
+                int to = Long.numberOfTrailingZeros(neighbours);
+                neighbours &= neighbours - 1;
+
+                int step = Steps.step(from, to);
+                int encoded = BinaryRecordWriter.encode(step);
+                assertNotEquals(BinaryRecordWriter.END_OF_TURN, encoded);
+                assertFalse(used[encoded]);
+                used[encoded] = true;
+                assertEquals(step, BinaryRecordReader.decode(encoded));
+            }
+        }
+    }
+
+    // we check a save survives the conversion to binary and back
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path text = Path.of("saves", "immobilization.txt");
+        Path binary = folder.resolve("immobilization" + BinaryRecordWriter.EXTENSION);
+        Path back = folder.resolve("immobilization.txt");
+
+        GameRecordConverter.convert(text, binary);
+        assertTrue(BinaryRecordReader.isBinary(binary));
+        assertFalse(BinaryRecordReader.isBinary(text));
+        assertTrue(Files.size(binary) * 4 < Files.size(text));
+
+        GameRecordConverter.convert(binary, back);
+        List<String> original = Files.readAllLines(text).stream().map(String::stripTrailing).toList();
+        assertEquals(original, Files.readAllLines(back));
+    }
+
+    // we check a binary save loads into the same game as the text save
+    @Test
+    public void testLoadBinary() throws IOException {
+        Path text = Path.of("saves", "gold rabbits dead.txt");
+        Path binary = folder.resolve("gold rabbits dead" + BinaryRecordWriter.EXTENSION);
+        GameRecordConverter.convert(text, binary);
+
+        GameController fromText = new GameController(false, true);
+        fromText.serializer.loadGame(text.toFile());
+        GameController fromBinary = new GameController(false, true);
+        fromBinary.serializer.loadGame(binary.toFile());
+
+        assertEquals(fromText.board.position.key, fromBinary.board.position.key);
+        assertEquals(fromText.whoseTurn, fromBinary.whoseTurn);
+        assertEquals(fromText.reserveGold, fromBinary.reserveGold);
+        assertEquals(fromText.reserveSilver, fromBinary.reserveSilver);
+        assertEquals(fromText.timeForTurn, fromBinary.timeForTurn);
+        assertEquals(fromText.serializer.history, fromBinary.serializer.history);
+
+        fromText.shutdown();
+        fromBinary.shutdown();
+    }
+}
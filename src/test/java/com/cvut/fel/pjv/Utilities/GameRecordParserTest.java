@@ -0,0 +1,130 @@
+package com.cvut.fel.pjv.Utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cvut.fel.pjv.Engine.Steps;
+import com.cvut.fel.pjv.Engine.Turns;
+import com.cvut.fel.pjv.Models.Position;
+
+import org.junit.jupiter.api.Test;
+
+public class GameRecordParserTest {
+
+    /**
+     * Writes down everything the parser reports.
+     */
+    private static class Recorder implements GameRecordHandler {
+        final List<String> events = new ArrayList<>();
+        final List<Long> turns = new ArrayList<>();
+        int pieces;
+
+        @Override
+        public void startGame() {
+            events.add("start");
+        }
+
+        @Override
+        public void piece(int code, int square) {
+            ++pieces;
+        }
+
+        @Override
+        public void turn(int number, int color, long turn) {
+            events.add("turn " + number + " " + color + " " + Turns.length(turn));
+            turns.add(turn);
+        }
+
+        @Override
+        public void turnTime(int millis) {
+            events.add("current " + millis);
+        }
+
+        @Override
+        public void reserve(Colors color, int millis) {
+            events.add(color + " " + millis);
+        }
+
+        @Override
+        public void opponent(String strategy) {
+            events.add("ai " + strategy);
+        }
+
+        @Override
+        public void endGame() {
+            events.add("end");
+        }
+
+        @Override
+        public void error(long line) {
+            events.add("error " + line);
+        }
+    }
+
+    private static Recorder parse(String text, int bufferSize) throws IOException {
+        Recorder recorder = new Recorder();
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        new GameRecordParser(bufferSize).parse(Channels.newChannel(new ByteArrayInputStream(bytes)), recorder);
+        return recorder;
+    }
+
+    // we check a turn is decoded into packed steps, captures are skipped
+    @Test
+    public void testTurn() throws IOException {
+        Recorder recorder = parse("1g Ed2\n1s ed7\n2g Ed2n Ed3e Rc3x\nCURRENT 60\nGOLD 4\nSILVER 5\nAI SEARCH", 64);
+
+        assertEquals(List.of("start", "turn 2 1 2", "current 60", "GOLD 4", "SILVER 5", "ai SEARCH", "end"),
+                recorder.events);
+        assertEquals(2, recorder.pieces);
+
+        long turn = recorder.turns.get(0);
+        assertEquals(Steps.step(Position.square(6, 3), Position.square(5, 3)), Turns.step(turn, 0));
+        assertEquals(Steps.step(Position.square(5, 3), Position.square(5, 4)), Turns.step(turn, 1));
+    }
+
+    // we check the games of an archive are split by blank lines and by a new setup
+    @Test
+    public void testArchive() throws IOException {
+        String game = "1w Ra1\n1b ra8\n2w Ra1n\n2b ra8s\n";
+        Recorder recorder = parse(game + "\n\n" + game + game, 64);
+
+        assertEquals(3, recorder.events.stream().filter("start"::equals).count());
+        assertEquals(3, recorder.events.stream().filter("end"::equals).count());
+        assertEquals(6, recorder.pieces);
+        assertEquals(6, recorder.turns.size());
+    }
+
+    // we check broken lines are reported and skipped, the rest is still read
+    @Test
+    public void testErrors() throws IOException {
+        Recorder recorder = parse("1g Ra1\n1s Xa8\n2g Ra1w\n3g Ra1n Ra2n Ra3n Ra4n Ra5n\nGOLD x\n4g Ra1n\n", 64);
+
+        assertEquals(List.of("start", "error 2", "error 3", "error 4", "error 5", "turn 4 1 1", "end"),
+                recorder.events);
+    }
+
+    // we check a save is read the same way whatever the size of the buffer, tokens
+    // split between two reads included
+    @Test
+    public void testBufferSize() throws IOException {
+        Path save = Path.of("saves", "game loads vs AI.txt");
+        Recorder large = new Recorder();
+        new GameRecordParser().parse(save, large);
+        Recorder small = new Recorder();
+        new GameRecordParser(3).parse(save, small);
+
+        assertEquals(32, large.pieces);
+        assertFalse(large.turns.isEmpty());
+        assertFalse(large.events.stream().anyMatch(event -> event.startsWith("error")));
+        assertEquals("ai ", large.events.get(large.events.size() - 2));
+        assertEquals(large.events, small.events);
+        assertEquals(large.turns, small.turns);
+    }
+}
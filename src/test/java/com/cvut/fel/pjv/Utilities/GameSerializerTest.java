@@ -94,7 +94,7 @@ public class GameSerializerTest {
             writer.write("CURRENT 60\n");
         }
 
-        board.board = new Piece[8][8];
+        board.setBoard(new Piece[8][8]);
         gameSerializer.loadGame(tempFile);
 
         verify(controlsView, times(1)).changeControls();
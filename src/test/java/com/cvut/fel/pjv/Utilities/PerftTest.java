@@ -0,0 +1,68 @@
+package com.cvut.fel.pjv.Utilities;
+
+import com.cvut.fel.pjv.Models.Board;
+import com.cvut.fel.pjv.Models.Piece;
+import com.cvut.fel.pjv.Models.Position;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTest {
+
+    // we check the step counts of the initial position, only the front row can move
+    @Test
+    public void testInitialSteps() {
+        Board board = new Board();
+        board.initBoard();
+        Perft perft = new Perft(true, 0, 1);
+
+        Map<String, Long> divided = perft.divide(board.position, Colors.GOLD.ordinal(), 1);
+        assertEquals(8, divided.size());
+        assertEquals(8, perft.nodes);
+
+        // after one step the turn can be ended, so every second step count has the passes as well
+        long two = perft.count(board.position, Colors.GOLD.ordinal(), 2);
+        assertTrue(two > 8 * 8);
+    }
+
+    // we check the hash table and the threads do not change the counts
+    @Test
+    public void testHashedAndParallel() {
+        Board board = new Board();
+        board.initBoard();
+        Position position = board.position;
+        long key = position.key;
+
+        long plain = new Perft(true, 0, 1).count(position, Colors.GOLD.ordinal(), 5);
+        assertEquals(plain, new Perft(true, 4, 1).count(position, Colors.GOLD.ordinal(), 5));
+        assertEquals(plain, new Perft(true, 4, 3).count(position, Colors.GOLD.ordinal(), 5));
+        assertEquals(key, position.key);
+    }
+
+    // we check full turns on a small position in every mode
+    @Test
+    public void testTurns() {
+        Board board = new Board();
+        board.setPiece(6, 3, new Piece(Figures.ELEPHANT, Colors.GOLD));
+        board.setPiece(7, 0, new Piece(Figures.RABBIT, Colors.GOLD));
+        board.setPiece(1, 4, new Piece(Figures.CAMEL, Colors.SILVER));
+        board.setPiece(0, 7, new Piece(Figures.RABBIT, Colors.SILVER));
+
+        long plain = new Perft(false, 0, 1).count(board.position, Colors.GOLD.ordinal(), 2);
+        assertTrue(plain > 0);
+        assertEquals(plain, new Perft(false, 4, 1).count(board.position, Colors.GOLD.ordinal(), 2));
+        assertEquals(plain, new Perft(false, 0, 2).count(board.position, Colors.GOLD.ordinal(), 2));
+    }
+
+    // we check a saved game can be used as the root
+    @Test
+    public void testSavedGame() {
+        Position position = Perft.load(new File("saves/game loads vs AI.txt"));
+        assertEquals(Colors.GOLD.ordinal(), position.getSide());
+        assertTrue(new Perft(false, 0, 1).count(position, position.getSide(), 1) > 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.cvut.fel.pjv.Utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StepTraceTest {
+
+    @TempDir
+    Path folder;
+
+    // we check the steps played and taken back are traced in fixed size records
+    @Test
+    public void testTraceSteps() throws IOException {
+        Path file = folder.resolve("trace.bin");
+        GameController gameController = new GameController(false, true);
+        gameController.trace = new StepTrace(file);
+        gameController.createBoard(false);
+        gameController.beginGame();
+
+        gameController.setPieceTypeAtPosition(6, 0, 5, 0);
+        long key = gameController.board.position.key;
+        gameController.setPieceTypeAtPosition(5, 0, 4, 0);
+        long next = gameController.board.position.key;
+        gameController.stepBack();
+        gameController.shutdown();
+
+        assertEquals(StepTrace.MAGIC.length + 1 + 3 * StepTrace.RECORD_BYTES, Files.size(file));
+
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        assertEquals(3, StepTrace.print(file, new PrintStream(text, true, StandardCharsets.US_ASCII)));
+        String[] lines = text.toString(StandardCharsets.US_ASCII).split("\\R");
+        assertTrue(lines[0].endsWith("g0 a2-a3 " + Long.toHexString(key)));
+        assertTrue(lines[1].endsWith("g1 a3-a4 " + Long.toHexString(next)));
+        assertTrue(lines[2].endsWith("g1 undo a3-a4 " + Long.toHexString(key)));
+    }
+}
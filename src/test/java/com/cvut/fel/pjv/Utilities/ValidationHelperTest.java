@@ -70,9 +70,9 @@ public class ValidationHelperTest {
         int[] newPos = { 1, 0 };
         Piece goldRabbit = new Piece(Figures.RABBIT, Colors.GOLD);
         Piece silverElephant = new Piece(Figures.ELEPHANT, Colors.SILVER);
-        board.board[0][0] = goldRabbit;
-        board.board[1][0] = null;
-        board.board[0][1] = silverElephant;
+        board.setPiece(0, 0, goldRabbit);
+        board.setPiece(1, 0, null);
+        board.setPiece(0, 1, silverElephant);
         boolean result = validationHelper.checkIfMoveValid(oldPos, newPos, Colors.GOLD, 0, false);
         assertFalse(result);
     }
@@ -80,8 +80,8 @@ public class ValidationHelperTest {
     // we check if we can finish the turn without making any changes
     @Test
     public void testValidateEndTurn_NoChange() {
-        validationHelper.boardCopy = new Piece[8][8]; // copy is empty
-        board.board = new Piece[8][8]; // board is also empty
+        validationHelper.turnStartKey = 0L; // key of the empty board
+        board.setBoard(new Piece[8][8]); // board is also empty
 
         boolean result = validationHelper.validateEndTurn();
         assertFalse(result);
@@ -90,10 +90,10 @@ public class ValidationHelperTest {
     // we check if we can make the move with changes
     @Test
     public void testValidateEndTurn_WithChange() {
-        validationHelper.boardCopy = new Piece[8][8]; // copy is empty
+        validationHelper.turnStartKey = 0L; // key of the empty board
         Piece[][] boardState = new Piece[8][8];
         boardState[0][0] = new Piece(Figures.RABBIT, Colors.GOLD);
-        board.board = boardState;
+        board.setBoard(boardState);
 
         boolean result = validationHelper.validateEndTurn();
         assertTrue(result);
@@ -103,10 +103,10 @@ public class ValidationHelperTest {
     @Test
     public void testTrap_NoTrap() {
         board.trap = new int[] { 3, 3, 5, 5 };
-        board.board[3][3] = null;
-        board.board[3][5] = null;
-        board.board[5][3] = null;
-        board.board[5][5] = null;
+        board.setPiece(3, 3, null);
+        board.setPiece(3, 5, null);
+        board.setPiece(5, 3, null);
+        board.setPiece(5, 5, null);
 
         String result = validationHelper.trap();
         assertEquals("", result);
@@ -117,11 +117,11 @@ public class ValidationHelperTest {
     public void testTrap_WithTrap() {
         board.trap = new int[] { 3, 3, 5, 5 };
         Piece trappedPiece = new Piece(Figures.RABBIT, Colors.GOLD);
-        board.board[3][3] = trappedPiece;
-        board.board[2][3] = null;
-        board.board[4][3] = null;
-        board.board[3][2] = null;
-        board.board[3][4] = null;
+        board.setPiece(3, 3, trappedPiece);
+        board.setPiece(2, 3, null);
+        board.setPiece(4, 3, null);
+        board.setPiece(3, 2, null);
+        board.setPiece(3, 4, null);
 
         String result = validationHelper.trap();
         assertFalse(result.isEmpty());
@@ -134,7 +134,7 @@ public class ValidationHelperTest {
         Piece[][] boardState = new Piece[8][8];
         boardState[0][0] = new Piece(Figures.RABBIT, Colors.SILVER);
         boardState[7][7] = new Piece(Figures.RABBIT, Colors.GOLD);
-        board.board = boardState;
+        board.setBoard(boardState);
 
         Colors result = validationHelper.checkWinner(Colors.GOLD);
         assertNull(result);
@@ -145,7 +145,7 @@ public class ValidationHelperTest {
     public void testCheckWinner_GoldRabbitWins() {
         Piece[][] boardState = new Piece[8][8];
         boardState[0][0] = new Piece(Figures.RABBIT, Colors.GOLD);
-        board.board = boardState;
+        board.setBoard(boardState);
 
         Colors result = validationHelper.checkWinner(Colors.GOLD);
         assertEquals(Colors.GOLD, result);
@@ -156,7 +156,7 @@ public class ValidationHelperTest {
     public void testCheckWinner_SilverRabbitWins() {
         Piece[][] boardState = new Piece[8][8];
         boardState[7][7] = new Piece(Figures.RABBIT, Colors.SILVER);
-        board.board = boardState;
+        board.setBoard(boardState);
 
         Colors result = validationHelper.checkWinner(Colors.GOLD);
         assertEquals(Colors.SILVER, result);
@@ -166,7 +166,20 @@ public class ValidationHelperTest {
     @Test
     public void testCheckWinner_NoGoldRabbits() {
         Piece[][] boardState = new Piece[8][8];
-        board.board = boardState;
+        board.setBoard(boardState);
+
+        Colors result = validationHelper.checkWinner(Colors.GOLD);
+        assertEquals(Colors.GOLD, result);
+    }
+
+    // we check if the gold wins if the only silver piece is frozen on the edge
+    @Test
+    public void testCheckWinner_Immobilized() {
+        Piece[][] boardState = new Piece[8][8];
+        boardState[3][0] = new Piece(Figures.RABBIT, Colors.SILVER);
+        boardState[3][1] = new Piece(Figures.ELEPHANT, Colors.GOLD);
+        boardState[4][0] = new Piece(Figures.RABBIT, Colors.GOLD);
+        board.setBoard(boardState);
 
         Colors result = validationHelper.checkWinner(Colors.GOLD);
         assertEquals(Colors.GOLD, result);
@@ -176,7 +189,7 @@ public class ValidationHelperTest {
     @Test
     public void testCheckWinner_NoSilverRabbits() {
         Piece[][] boardState = new Piece[8][8];
-        board.board = boardState;
+        board.setBoard(boardState);
 
         Colors result = validationHelper.checkWinner(Colors.SILVER);
         assertEquals(Colors.SILVER, result);
@@ -0,0 +1,66 @@
+package com.cvut.fel.pjv.Views;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+
+import com.cvut.fel.pjv.Models.Position;
+import com.cvut.fel.pjv.Utilities.Colors;
+import com.cvut.fel.pjv.Utilities.Figures;
+
+import org.junit.jupiter.api.Test;
+
+public class BoardCanvasTest {
+
+    // we check a click anywhere in the area of a square is mapped back to the square,
+    // also on the right and bottom edges of a board that can't be split evenly
+    @Test
+    public void testSquareAtInvertsBounds() {
+        BoardCanvas canvas = new BoardCanvas();
+        for (int[] size : new int[][] { { 650, 650 }, { 643, 611 } }) {
+            canvas.setSize(size[0], size[1]);
+
+            int area = 0;
+            for (int square = 0; square < Position.SQUARES; ++square) {
+                Rectangle bounds = canvas.squareBounds(square);
+                int right = bounds.x + bounds.width - 1;
+                int bottom = bounds.y + bounds.height - 1;
+                assertEquals(square, canvas.squareAt(bounds.x, bounds.y));
+                assertEquals(square, canvas.squareAt(right, bounds.y));
+                assertEquals(square, canvas.squareAt(bounds.x, bottom));
+                assertEquals(square, canvas.squareAt(right, bottom));
+                assertEquals(square, canvas.squareAt(bounds.x + bounds.width / 2, bounds.y + bounds.height / 2));
+                area += bounds.width * bounds.height;
+            }
+
+            // the squares cover the board without gaps, nothing outside is a square
+            assertEquals(size[0] * size[1], area);
+            assertEquals(-1, canvas.squareAt(size[0], 0));
+            assertEquals(-1, canvas.squareAt(0, size[1]));
+            assertEquals(-1, canvas.squareAt(-1, 0));
+        }
+    }
+
+    // we check only a changed square is repainted
+    @Test
+    public void testUnchangedPieceIsNotRepainted() {
+        int[] repaints = new int[1];
+        BoardCanvas canvas = new BoardCanvas() {
+            @Override
+            public void repaint(Rectangle r) {
+                ++repaints[0];
+            }
+        };
+        canvas.setSize(650, 650);
+        int code = Position.code(Colors.GOLD, Figures.RABBIT);
+
+        canvas.setPiece(8, code);
+        assertEquals(1, repaints[0]);
+        canvas.setPiece(8, code);
+        assertEquals(1, repaints[0]);
+        assertEquals(code, canvas.getPiece(8));
+
+        canvas.setPiece(8, Position.EMPTY);
+        assertEquals(2, repaints[0]);
+    }
+}
@@ -0,0 +1,155 @@
+package com.cvut.fel.pjv.Views;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import com.cvut.fel.pjv.Controllers.GameController;
+import com.cvut.fel.pjv.Controllers.GameListener;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class HistoryModelTest {
+
+    private HistoryModel model;
+    private List<String> events;
+
+    @BeforeEach
+    public void setUp() {
+        model = new HistoryModel();
+        events = new ArrayList<>();
+
+        // every event is written down with its type and its rows
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add("changed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+        });
+    }
+
+    // we check the text is cut into one row per turn, whatever pieces it comes in
+    @Test
+    public void testAppend() {
+        model.append("1g Ra1 Rb1\n1s ra8 rb8\n");
+        assertEquals(List.of("added 0-1"), events);
+
+        model.append("2g ");
+        model.append("Ed2n ");
+        model.append("Ed3n ");
+        model.append("\n");
+        model.append("2s ");
+        assertEquals(List.of("added 0-1", "added 2-2", "changed 2-2", "changed 2-2", "added 3-3"), events);
+
+        assertEquals(4, model.getSize());
+        assertEquals("1g Ra1 Rb1", model.getElementAt(0));
+        assertEquals("1s ra8 rb8", model.getElementAt(1));
+        assertEquals("2g Ed2n Ed3n", model.getElementAt(2));
+        assertEquals("2s", model.getElementAt(3));
+        assertEquals("2g", model.headerAt(2));
+
+        // a repeated header of a turn without steps is the same row
+        events.clear();
+        model.append("2s ");
+        assertEquals(4, model.getSize());
+        assertTrue(events.isEmpty());
+
+        // the steps and the next header in one piece change one row and add one
+        model.append("ed7s \n3g ");
+        assertEquals(List.of("changed 3-3", "added 4-4"), events);
+        assertEquals("2s ed7s", model.getElementAt(3));
+        assertEquals("3g", model.getElementAt(4));
+    }
+
+    // we check a removed step takes its capture with it, and only the last row changes
+    @Test
+    public void testRemoveLastStep() {
+        model.append("1g Ra1\n1s ra8\n2g Ed2n Cc2n Cc3x ");
+        events.clear();
+
+        model.removeLastStep();
+        assertEquals("2g Ed2n", model.getElementAt(2));
+        model.removeLastStep();
+        assertEquals("2g", model.getElementAt(2));
+        assertEquals(List.of("changed 2-2", "changed 2-2"), events);
+
+        // the turns before are never touched
+        events.clear();
+        model.removeLastStep();
+        assertEquals(3, model.getSize());
+        assertEquals("1s ra8", model.getElementAt(1));
+        assertTrue(events.isEmpty());
+    }
+
+    // we check the whole history is removed at once
+    @Test
+    public void testClear() {
+        model.append("1g Ra1\n1s ra8\n2g ");
+        events.clear();
+
+        model.clear();
+        assertEquals(0, model.getSize());
+        assertEquals(List.of("removed 0-2"), events);
+
+        events.clear();
+        model.clear();
+        assertTrue(events.isEmpty());
+    }
+
+    // we check the rows of a played game are the turns of the saved history, so a
+    // clicked row is the right turn to go back to
+    @Test
+    public void testRowsMatchSavedHistory() {
+        GameController gameController = new GameController(false, true);
+        gameController.addListener(new GameListener() {
+            @Override
+            public void addToHistory(String turn) {
+                model.append(turn);
+            }
+
+            @Override
+            public void removeFromHistory() {
+                model.removeLastStep();
+            }
+        });
+        gameController.createBoard(false);
+        gameController.beginGame();
+
+        // the gold cat steps onto the trap and is captured, then the step is taken back
+        gameController.setPieceTypeAtPosition(6, 0, 5, 0);
+        gameController.setPieceTypeAtPosition(6, 2, 5, 2);
+        assertTrue(model.getElementAt(2).endsWith("Cc2n Cc3x"));
+        gameController.stepBack();
+        assertEquals("2g Da2n", model.getElementAt(2));
+        gameController.finishPlayerTurn();
+
+        gameController.setPieceTypeAtPosition(1, 0, 2, 0);
+        gameController.finishPlayerTurn();
+
+        List<String> history = gameController.serializer.history;
+        assertEquals(4, history.size());
+        for (int i = 0; i < history.size(); ++i) {
+            assertEquals(history.get(i).trim(), model.getElementAt(i));
+        }
+
+        // the next turn has its row already, without any steps
+        assertEquals(history.size() + 1, model.getSize());
+        assertEquals("3g", model.getElementAt(history.size()));
+        gameController.shutdown();
+    }
+}
@@ -0,0 +1,37 @@
+package com.cvut.fel.pjv.Views;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Image;
+
+import com.cvut.fel.pjv.Models.Position;
+
+import org.junit.jupiter.api.Test;
+
+public class SpriteCacheTest {
+
+    // we check the pictures are scaled only when the size changes
+    @Test
+    public void testResizeOnlyOnChange() {
+        SpriteCache sprites = new SpriteCache();
+        assertTrue(sprites.resize(40));
+        assertEquals(40, sprites.size());
+
+        Image[] scaled = new Image[Position.PIECE_CODES];
+        for (int code = 0; code < Position.PIECE_CODES; ++code) {
+            scaled[code] = sprites.sprite(code);
+            assertEquals(40, scaled[code].getWidth(null));
+        }
+
+        // the same size or no size at all keeps the pictures we have
+        assertFalse(sprites.resize(40));
+        assertFalse(sprites.resize(0));
+        for (int code = 0; code < Position.PIECE_CODES; ++code) {
+            assertSame(scaled[code], sprites.sprite(code));
+        }
+
+        assertTrue(sprites.resize(48));
+        assertNotSame(scaled[0], sprites.sprite(0));
+        assertEquals(48, sprites.sprite(0).getHeight(null));
+    }
+}